@@ -10,4 +10,14 @@ public interface Authorization {
 	 * Returns current access token for requests authorization
 	 */
 	String getAccessToken();
+
+	/**
+	 * Returns time (in milliseconds since epoch) when the access token expires or 0 if it's unknown.
+	 * If time is known then token is refreshed in the background before it expires
+	 *
+	 * @see RestApiConfiguration#setTokenRefreshFraction(float)
+	 */
+	default long getExpirationTime() {
+		return 0;
+	}
 }
@@ -0,0 +1,58 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+
+import okhttp3.CacheControl;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Interceptor that returns stale response from the cache when request with {@link CachePolicy#STALE_IF_ERROR} policy failed
+ *
+ * @author Rafal Zajfert
+ */
+class CacheInterceptor implements Interceptor {
+
+	@Override
+	public Response intercept(@NonNull Chain chain) throws IOException {
+		okhttp3.Request request = chain.request();
+		GetRequest<?> getRequest = request.tag(GetRequest.class);
+		if (getRequest == null || getRequest.getCachePolicy() != CachePolicy.STALE_IF_ERROR) {
+			return chain.proceed(request);
+		}
+		Response response;
+		try {
+			response = chain.proceed(request);
+		} catch (IOException e) {
+			Response cached = proceedFromCache(chain, request);
+			if (cached == null) {
+				throw e;
+			}
+			return cached;
+		}
+		if (response.code() >= 500) {
+			Response cached = proceedFromCache(chain, request);
+			if (cached != null) {
+				response.close();
+				return cached;
+			}
+		}
+		return response;
+	}
+
+	/**
+	 * Returns response from the cache or null if the cache doesn't contain response for this request
+	 */
+	@Nullable
+	private Response proceedFromCache(@NonNull Chain chain, @NonNull okhttp3.Request request) throws IOException {
+		Response cached = chain.proceed(request.newBuilder().cacheControl(CacheControl.FORCE_CACHE).build());
+		if (cached.cacheResponse() == null) {
+			cached.close();
+			return null;
+		}
+		return cached;
+	}
+}
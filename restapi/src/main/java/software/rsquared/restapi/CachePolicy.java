@@ -0,0 +1,38 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.IntDef;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Policy of reading responses from the http cache. Cache must be enabled by {@link RestApiConfiguration#setCache(java.io.File, long)}
+ *
+ * @author Rafal Zajfert
+ * @see GetRequest#setCachePolicy(int)
+ * @see RestApiConfiguration#setCachePolicy(int)
+ */
+@IntDef({CachePolicy.DEFAULT, CachePolicy.NETWORK_ONLY, CachePolicy.CACHE_FIRST, CachePolicy.STALE_IF_ERROR})
+@Retention(RetentionPolicy.SOURCE)
+public @interface CachePolicy {
+
+	/**
+	 * Cache is used according to the Cache-Control headers, stale responses are revalidated with the ETag or Last-Modified value
+	 */
+	int DEFAULT = 0;
+
+	/**
+	 * Response is always downloaded from the server, but it is still stored in the cache
+	 */
+	int NETWORK_ONLY = 1;
+
+	/**
+	 * Cached response is used even if it is stale, server is called only when there is no response in the cache
+	 */
+	int CACHE_FIRST = 2;
+
+	/**
+	 * Same as {@link #DEFAULT} but if the server cannot be reached or responds with 5xx error then stale response from the cache is used
+	 */
+	int STALE_IF_ERROR = 3;
+}
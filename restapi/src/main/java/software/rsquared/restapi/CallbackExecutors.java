@@ -0,0 +1,48 @@
+package software.rsquared.restapi;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Executors of the listener callbacks
+ *
+ * @author Rafal Zajfert
+ * @see RestApiConfiguration#setCallbackExecutor(Executor)
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class CallbackExecutors {
+
+	private static final Executor DIRECT = Runnable::run;
+
+	private static volatile Executor mainThread;
+
+	private CallbackExecutors() {
+	}
+
+	/**
+	 * Returns executor that posts callbacks to the main thread
+	 */
+	@NonNull
+	public static Executor mainThread() {
+		if (mainThread == null) {
+			synchronized (CallbackExecutors.class) {
+				if (mainThread == null) {
+					Handler handler = new Handler(Looper.getMainLooper());
+					mainThread = handler::post;
+				}
+			}
+		}
+		return mainThread;
+	}
+
+	/**
+	 * Returns executor that invokes callbacks immediately on the thread which executed the request
+	 */
+	@NonNull
+	public static Executor direct() {
+		return DIRECT;
+	}
+}
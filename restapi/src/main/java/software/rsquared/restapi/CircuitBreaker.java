@@ -0,0 +1,350 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.IntDef;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.HttpUrl;
+import software.rsquared.restapi.listeners.CircuitBreakerListener;
+
+/**
+ * Circuit breaker that stops sending requests to the failing host or endpoint. Results of the last calls are tracked in
+ * the sliding window, when rate of the failed (connection errors and 5xx responses) or slow calls exceeds the threshold
+ * circuit is opened and requests fail immediately with the {@link software.rsquared.restapi.exceptions.RequestException#CIRCUIT_OPEN} code.
+ * After the {@link #setOpenDuration(long) open duration} circuit is half-open and a few probe calls are allowed,
+ * circuit is closed if all of them succeed or opened again otherwise.
+ * <p>
+ * Circuits are kept per host, calls of the {@link #addEndpoint(String) endpoints} have their own circuits.
+ *
+ * @author Rafal Zajfert
+ * @see RestApiConfiguration#setCircuitBreaker(CircuitBreaker)
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class CircuitBreaker {
+
+	public static final int CLOSED = 0;
+	public static final int OPEN = 1;
+	public static final int HALF_OPEN = 2;
+
+	@IntDef({CLOSED, OPEN, HALF_OPEN})
+	@Retention(RetentionPolicy.SOURCE)
+	public @interface State {
+	}
+
+	private final Map<String, Circuit> circuits = new HashMap<>();
+	private final List<PathTemplate> endpoints = new ArrayList<>();
+	private int windowSize = 50;
+	private int minCalls = 10;
+	private float failureRateThreshold = 0.5f;
+	private float slowCallRateThreshold = 1f;
+	private long slowCallDuration = 10 * 1000;
+	private long openDuration = 30 * 1000;
+	private int halfOpenCalls = 3;
+	@Nullable
+	private CircuitBreakerListener listener;
+
+	/**
+	 * Sets number of the last calls used to calculate failure and slow call rates
+	 * <p>
+	 * default: 50
+	 */
+	public synchronized CircuitBreaker setWindowSize(int windowSize) {
+		if (windowSize <= 0) {
+			throw new IllegalArgumentException("windowSize < 1: " + windowSize);
+		}
+		this.windowSize = windowSize;
+		circuits.clear();
+		return this;
+	}
+
+	/**
+	 * Sets minimum number of the calls in the window before circuit can be opened
+	 * <p>
+	 * default: 10
+	 */
+	public synchronized CircuitBreaker setMinCalls(int minCalls) {
+		if (minCalls <= 0) {
+			throw new IllegalArgumentException("minCalls < 1: " + minCalls);
+		}
+		this.minCalls = minCalls;
+		return this;
+	}
+
+	/**
+	 * Sets rate of the failed calls (between 0 and 1) that opens the circuit
+	 * <p>
+	 * default: 0.5
+	 */
+	public synchronized CircuitBreaker setFailureRateThreshold(float failureRateThreshold) {
+		if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+			throw new IllegalArgumentException("failureRateThreshold must be between 0 and 1: " + failureRateThreshold);
+		}
+		this.failureRateThreshold = failureRateThreshold;
+		return this;
+	}
+
+	/**
+	 * Sets rate of the {@link #setSlowCallDuration(long) slow} calls (between 0 and 1) that opens the circuit
+	 * <p>
+	 * default: 1
+	 */
+	public synchronized CircuitBreaker setSlowCallRateThreshold(float slowCallRateThreshold) {
+		if (slowCallRateThreshold <= 0 || slowCallRateThreshold > 1) {
+			throw new IllegalArgumentException("slowCallRateThreshold must be between 0 and 1: " + slowCallRateThreshold);
+		}
+		this.slowCallRateThreshold = slowCallRateThreshold;
+		return this;
+	}
+
+	/**
+	 * Sets duration in milliseconds after which the call is slow
+	 * <p>
+	 * default: 10s
+	 */
+	public synchronized CircuitBreaker setSlowCallDuration(long millis) {
+		if (millis <= 0) {
+			throw new IllegalArgumentException("slowCallDuration < 1: " + millis);
+		}
+		this.slowCallDuration = millis;
+		return this;
+	}
+
+	/**
+	 * Sets time in milliseconds for which circuit is open before probe calls are allowed
+	 * <p>
+	 * default: 30s
+	 */
+	public synchronized CircuitBreaker setOpenDuration(long millis) {
+		if (millis < 0) {
+			throw new IllegalArgumentException("openDuration < 0: " + millis);
+		}
+		this.openDuration = millis;
+		return this;
+	}
+
+	/**
+	 * Sets number of the probe calls allowed when circuit is half-open
+	 * <p>
+	 * default: 3
+	 */
+	public synchronized CircuitBreaker setHalfOpenCalls(int halfOpenCalls) {
+		if (halfOpenCalls <= 0) {
+			throw new IllegalArgumentException("halfOpenCalls < 1: " + halfOpenCalls);
+		}
+		this.halfOpenCalls = halfOpenCalls;
+		return this;
+	}
+
+	/**
+	 * Adds endpoint with its own circuit. Template is the url path where * matches one path segment e.g. /users/&#42;/posts
+	 */
+	public synchronized CircuitBreaker addEndpoint(@NonNull String pathTemplate) {
+		endpoints.add(new PathTemplate(pathTemplate));
+		return this;
+	}
+
+	/**
+	 * Sets listener notified when state of the circuit changes. Listener is invoked on the thread which executed the request
+	 */
+	public synchronized CircuitBreaker setListener(@Nullable CircuitBreakerListener listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	/**
+	 * Returns current state of the circuit
+	 *
+	 * @param key key returned by the {@link #getKey(HttpUrl)}
+	 */
+	@State
+	public synchronized int getState(@NonNull String key) {
+		Circuit circuit = circuits.get(key);
+		return circuit == null ? CLOSED : circuit.state;
+	}
+
+	/**
+	 * Returns key of the circuit that contains calls of the url: host or host and endpoint template
+	 */
+	@NonNull
+	public synchronized String getKey(@NonNull HttpUrl url) {
+		for (PathTemplate endpoint : endpoints) {
+			if (endpoint.matches(url)) {
+				return endpoint.getKey(url);
+			}
+		}
+		return url.host();
+	}
+
+	/**
+	 * Resets all circuits to the closed state
+	 */
+	public synchronized void reset() {
+		circuits.clear();
+	}
+
+	/**
+	 * Returns true if call can be executed
+	 */
+	boolean tryAcquire(@NonNull String key) {
+		int from;
+		synchronized (this) {
+			Circuit circuit = getCircuit(key);
+			from = circuit.state;
+			if (!circuit.tryAcquire()) {
+				return false;
+			}
+			if (from == circuit.state) {
+				return true;
+			}
+		}
+		notifyListener(key, from, HALF_OPEN);
+		return true;
+	}
+
+	/**
+	 * Records result of the call
+	 *
+	 * @param failed   true if connection failed or server responded with 5xx code
+	 * @param duration duration of the call in milliseconds
+	 */
+	void onResult(@NonNull String key, boolean failed, long duration) {
+		int from;
+		int to;
+		synchronized (this) {
+			Circuit circuit = getCircuit(key);
+			from = circuit.state;
+			circuit.onResult(failed, duration >= slowCallDuration);
+			to = circuit.state;
+		}
+		if (from != to) {
+			notifyListener(key, from, to);
+		}
+	}
+
+	/**
+	 * Releases permission of the call which was cancelled
+	 */
+	synchronized void onCancelled(@NonNull String key) {
+		getCircuit(key).onCancelled();
+	}
+
+	private void notifyListener(@NonNull String key, int from, int to) {
+		CircuitBreakerListener listener = this.listener;
+		if (listener != null) {
+			listener.onStateChanged(key, from, to);
+		}
+	}
+
+	@NonNull
+	private Circuit getCircuit(@NonNull String key) {
+		Circuit circuit = circuits.get(key);
+		if (circuit == null) {
+			circuit = new Circuit(windowSize);
+			circuits.put(key, circuit);
+		}
+		return circuit;
+	}
+
+	private static long now() {
+		return System.nanoTime() / 1000000;
+	}
+
+	/**
+	 * State and the last results of one circuit
+	 */
+	private class Circuit {
+		private final boolean[] failures;
+		private final boolean[] slowCalls;
+		private int count;
+		private int next;
+		private int failed;
+		private int slow;
+		@State
+		private int state = CLOSED;
+		private long stateChangedAt;
+		private int probes;
+		private int probesSucceeded;
+
+		Circuit(int size) {
+			failures = new boolean[size];
+			slowCalls = new boolean[size];
+		}
+
+		boolean tryAcquire() {
+			if (state == OPEN) {
+				if (now() - stateChangedAt < openDuration) {
+					return false;
+				}
+				setState(HALF_OPEN);
+			} else if (state == HALF_OPEN && now() - stateChangedAt >= openDuration) {
+				// probes didn't finish in time, e.g. they were cancelled
+				setState(HALF_OPEN);
+			}
+			if (state == HALF_OPEN) {
+				if (probes >= halfOpenCalls) {
+					return false;
+				}
+				probes++;
+			}
+			return true;
+		}
+
+		void onResult(boolean failed, boolean slow) {
+			if (state == OPEN) {
+				return;
+			}
+			if (state == HALF_OPEN) {
+				if (failed || slow) {
+					setState(OPEN);
+				} else if (++probesSucceeded >= halfOpenCalls) {
+					setState(CLOSED);
+				}
+				return;
+			}
+			add(failed, slow);
+			if (count >= minCalls && (this.failed >= failureRateThreshold * count || this.slow >= slowCallRateThreshold * count)) {
+				setState(OPEN);
+			}
+		}
+
+		void onCancelled() {
+			if (state == HALF_OPEN && probes > probesSucceeded) {
+				probes--;
+			}
+		}
+
+		private void add(boolean failed, boolean slow) {
+			if (count == failures.length) {
+				this.failed -= failures[next] ? 1 : 0;
+				this.slow -= slowCalls[next] ? 1 : 0;
+			} else {
+				count++;
+			}
+			failures[next] = failed;
+			slowCalls[next] = slow;
+			this.failed += failed ? 1 : 0;
+			this.slow += slow ? 1 : 0;
+			next = (next + 1) % failures.length;
+		}
+
+		private void setState(@State int state) {
+			this.state = state;
+			stateChangedAt = now();
+			probes = 0;
+			probesSucceeded = 0;
+			if (state == CLOSED) {
+				count = 0;
+				next = 0;
+				failed = 0;
+				slow = 0;
+			}
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package software.rsquared.restapi;
+
+/**
+ * Adaptive limit of the requests executed at the same time to one host (AIMD). Limit grows by one after about
+ * {@code limit} successful calls if it is used at least in half, and is decreased by 10% when call fails because of
+ * the server overload (connection error, 429 or 5xx response) or its latency is more than twice the lowest recent latency.
+ *
+ * @author Rafal Zajfert
+ * @see RestApiConfiguration#setAdaptiveConcurrency(boolean)
+ */
+class ConcurrencyLimit {
+
+	private static final double BACKOFF_RATIO = 0.9;
+	private static final double LATENCY_TOLERANCE = 2;
+	private static final long LATENCY_MARGIN = 20;
+	private static final int LATENCY_WINDOW = 100;
+
+	private final int maxLimit;
+	private double limit;
+	private long noLoadLatency = Long.MAX_VALUE;
+	private long windowMinLatency = Long.MAX_VALUE;
+	private int windowSamples;
+
+	ConcurrencyLimit(int initialLimit, int maxLimit) {
+		this.maxLimit = maxLimit;
+		this.limit = Math.max(1, Math.min(initialLimit, maxLimit));
+	}
+
+	synchronized int getLimit() {
+		return (int) limit;
+	}
+
+	/**
+	 * Updates limit with the result of the call
+	 *
+	 * @param latency  duration of the call in milliseconds
+	 * @param dropped  true if call failed because of the server overload
+	 * @param inFlight number of the requests running when the call finished
+	 */
+	synchronized void onSample(long latency, boolean dropped, int inFlight) {
+		if (!dropped) {
+			updateNoLoadLatency(latency);
+		}
+		if (dropped || (latency > LATENCY_TOLERANCE * noLoadLatency && latency - noLoadLatency > LATENCY_MARGIN)) {
+			limit = Math.max(1, limit * BACKOFF_RATIO);
+		} else if (inFlight * 2 >= limit) {
+			limit = Math.min(maxLimit, limit + 1 / limit);
+		}
+	}
+
+	/**
+	 * Lowest latency of the last window, so the limit can adapt when the server is permanently slower
+	 */
+	private void updateNoLoadLatency(long latency) {
+		windowMinLatency = Math.min(windowMinLatency, latency);
+		noLoadLatency = Math.min(noLoadLatency, latency);
+		if (++windowSamples >= LATENCY_WINDOW) {
+			noLoadLatency = windowMinLatency;
+			windowMinLatency = Long.MAX_VALUE;
+			windowSamples = 0;
+		}
+	}
+}
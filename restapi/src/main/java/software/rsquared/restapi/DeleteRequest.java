@@ -19,6 +19,14 @@ public abstract class DeleteRequest<T> extends Request<T> {
 	protected DeleteRequest() {
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean isIdempotent() {
+		return true;
+	}
+
 	@Override
 	protected Call createRequest(HttpUrl url) throws IOException {
 		okhttp3.Request.Builder builder = new okhttp3.Request.Builder()
@@ -33,6 +41,6 @@ public abstract class DeleteRequest<T> extends Request<T> {
 		} else {
 			builder.delete();
 		}
-		return httpClient.newCall(builder.build());
+		return getHttpClient().newCall(builder.build());
 	}
 }
@@ -0,0 +1,150 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.ByteString;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Request parameter with the content of the file. Content can be read from the {@link File}, {@link InputStream} or {@link ByteString}.
+ * Requests with at least one file parameter are sent as multipart form data
+ *
+ * @author Rafal Zajfert
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class FileParameter extends Parameter {
+
+	@NonNull
+	private final String fileName;
+
+	@Nullable
+	private final MediaType contentType;
+
+	private volatile boolean streamRead;
+
+	/**
+	 * Creates parameter with the content of the file. Content type is guessed from the file extension as image/extension
+	 */
+	public FileParameter(String name, @NonNull File file) {
+		this(name, file, null);
+	}
+
+	public FileParameter(String name, @NonNull File file, @Nullable MediaType contentType) {
+		super(name, file);
+		this.fileName = file.getName();
+		this.contentType = contentType != null ? contentType : MediaType.parse("image/" + getFileExtension(fileName));
+	}
+
+	public FileParameter(String name, @NonNull String fileName, @NonNull ByteString content, @Nullable MediaType contentType) {
+		super(name, content);
+		this.fileName = fileName;
+		this.contentType = contentType;
+	}
+
+	/**
+	 * Creates parameter with the content read from the stream. Stream is closed after the request body was written,
+	 * so the request with this parameter cannot be sent again and it is never retried
+	 *
+	 * @see #isOneShot()
+	 */
+	public FileParameter(String name, @NonNull String fileName, @NonNull InputStream content, @Nullable MediaType contentType) {
+		super(name, content);
+		this.fileName = fileName;
+		this.contentType = contentType;
+	}
+
+	@Override
+	public boolean isFile() {
+		return true;
+	}
+
+	/**
+	 * Returns path of the file or the file name if content is not read from the file
+	 */
+	@Override
+	public String getFilePath() {
+		Object value = getValue();
+		return value instanceof File ? ((File) value).getAbsolutePath() : fileName;
+	}
+
+	@NonNull
+	public String getFileName() {
+		return fileName;
+	}
+
+	@Nullable
+	public MediaType getContentType() {
+		return contentType;
+	}
+
+	/**
+	 * Returns true if content is read from the {@link InputStream}, so it can be written only once
+	 */
+	public boolean isOneShot() {
+		return getValue() instanceof InputStream;
+	}
+
+	/**
+	 * Returns false if content should be read from the file that doesn't exist
+	 */
+	public boolean exists() {
+		Object value = getValue();
+		return !(value instanceof File) || ((File) value).exists();
+	}
+
+	/**
+	 * Creates body of the multipart form part
+	 */
+	@NonNull
+	public RequestBody createRequestBody() {
+		Object value = getValue();
+		if (value instanceof File) {
+			return RequestBody.create(contentType, (File) value);
+		} else if (value instanceof ByteString) {
+			return RequestBody.create(contentType, (ByteString) value);
+		} else {
+			final InputStream stream = (InputStream) value;
+			return new RequestBody() {
+				@Nullable
+				@Override
+				public MediaType contentType() {
+					return contentType;
+				}
+
+				@Override
+				public void writeTo(@NonNull BufferedSink sink) throws IOException {
+					if (streamRead) {
+						throw new IOException("Content of the " + fileName + " was already read from the stream");
+					}
+					streamRead = true;
+					Source source = Okio.source(stream);
+					try {
+						sink.writeAll(source);
+					} finally {
+						try {
+							source.close();
+						} catch (IOException ignored) {
+						}
+					}
+				}
+			};
+		}
+	}
+
+	static String getFileExtension(@NonNull String fileName) {
+		int beginIndex = fileName.lastIndexOf(".") + 1;
+		if (beginIndex == 0) {
+			return "*";
+		}
+		return fileName.substring(beginIndex);
+	}
+}
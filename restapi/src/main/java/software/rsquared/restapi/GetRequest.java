@@ -4,7 +4,10 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 
+import okhttp3.CacheControl;
 import okhttp3.Call;
 import okhttp3.HttpUrl;
 
@@ -16,19 +19,130 @@ import okhttp3.HttpUrl;
  */
 public abstract class GetRequest<E> extends Request<E> {
 
+	private Integer cachePolicy;
+
+	private long maxStale;
+
+	private Boolean coalescing;
+
 	protected GetRequest() {
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean isIdempotent() {
+		return true;
+	}
+
 	@NonNull
 	@Override
 	protected Call createRequest(HttpUrl url) {
 		okhttp3.Request.Builder builder = new okhttp3.Request.Builder()
 				.url(url)
-				.get();
+				.get()
+				.tag(GetRequest.class, this);
+		CacheControl cacheControl = getCacheControl();
+		if (cacheControl != null) {
+			builder.cacheControl(cacheControl);
+		}
 		for (Map.Entry<String, String> entry : getHeaders().entrySet()) {
 			builder.addHeader(entry.getKey(), entry.getValue());
 		}
-		return httpClient.newCall(builder.build());
+		return getHttpClient().newCall(builder.build());
+	}
+
+	/**
+	 * Returns method and url of the request e.g. "GET http://example.com/users?page=1"
+	 */
+	@Nullable
+	@Override
+	protected String getCacheKey(@NonNull HttpUrl url) {
+		return "GET " + url;
+	}
+
+	/**
+	 * Returns key built from the request class, {@link #getCacheKey(HttpUrl) cache key} and headers if coalescing is enabled
+	 */
+	@Nullable
+	@Override
+	protected String getCoalescingKey(@NonNull HttpUrl url) {
+		if (!isCoalescing()) {
+			return null;
+		}
+		String cacheKey = getCacheKey(url);
+		if (cacheKey == null) {
+			return null;
+		}
+		StringBuilder key = new StringBuilder(getClass().getName()).append(' ').append(cacheKey);
+		for (Map.Entry<String, String> header : new TreeMap<>(getHeaders()).entrySet()) {
+			key.append('\n').append(header.getKey()).append(": ").append(header.getValue());
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Returns true if this request can share http call with the identical requests executed at the same time
+	 *
+	 * @see #setCoalescing(boolean)
+	 */
+	protected boolean isCoalescing() {
+		return coalescing != null ? coalescing : getConfiguration().isRequestCoalescing();
+	}
+
+	/**
+	 * Set true if this request can share http call with the identical requests executed at the same time.
+	 * Coalesced requests receive the same result object, set false if the result of this request is modified after delivery.
+	 * By default value from {@link RestApiConfiguration#isRequestCoalescing()} is used
+	 */
+	protected void setCoalescing(boolean coalescing) {
+		this.coalescing = coalescing;
+	}
+
+	/**
+	 * Policy of reading response from the http cache
+	 *
+	 * @see RestApiConfiguration#setCache(java.io.File, long)
+	 */
+	@CachePolicy
+	protected int getCachePolicy() {
+		return cachePolicy != null ? cachePolicy : getConfiguration().getCachePolicy();
+	}
+
+	/**
+	 * Set policy of reading response from the http cache. By default policy from the {@link RestApiConfiguration#getCachePolicy()} is used
+	 */
+	protected void setCachePolicy(@CachePolicy int cachePolicy) {
+		this.cachePolicy = cachePolicy;
+	}
+
+	/**
+	 * Set time in milliseconds for which expired response from the cache can be used without revalidation.
+	 * Not used with {@link CachePolicy#NETWORK_ONLY} and {@link CachePolicy#CACHE_FIRST} policies
+	 */
+	protected void setMaxStale(long millis) {
+		this.maxStale = millis;
+	}
+
+	/**
+	 * Returns cache control header for the current cache policy or null if the default http caching should be used
+	 */
+	@Nullable
+	protected CacheControl getCacheControl() {
+		switch (getCachePolicy()) {
+			case CachePolicy.NETWORK_ONLY:
+				return CacheControl.FORCE_NETWORK;
+			case CachePolicy.CACHE_FIRST:
+				return new CacheControl.Builder().maxStale(Integer.MAX_VALUE, TimeUnit.SECONDS).build();
+			case CachePolicy.DEFAULT:
+			case CachePolicy.STALE_IF_ERROR:
+			default:
+				if (maxStale > 0) {
+					return new CacheControl.Builder().maxStale((int) Math.min(Integer.MAX_VALUE, TimeUnit.MILLISECONDS.toSeconds(maxStale)), TimeUnit.SECONDS).build();
+				}
+				return null;
+		}
 	}
 
 	/**
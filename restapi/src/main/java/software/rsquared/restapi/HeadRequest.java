@@ -20,6 +20,14 @@ public abstract class HeadRequest<E> extends Request<E> {
 	protected HeadRequest() {
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean isIdempotent() {
+		return true;
+	}
+
 	@Override
 	protected Call createRequest(HttpUrl url) throws IOException {
 		okhttp3.Request.Builder builder = new okhttp3.Request.Builder()
@@ -28,7 +36,7 @@ public abstract class HeadRequest<E> extends Request<E> {
 		for (Map.Entry<String, String> entry : getHeaders().entrySet()) {
 			builder.addHeader(entry.getKey(), entry.getValue());
 		}
-		return httpClient.newCall(builder.build());
+		return getHttpClient().newCall(builder.build());
 	}
 
 	/**
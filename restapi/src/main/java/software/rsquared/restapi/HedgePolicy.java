@@ -0,0 +1,190 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Policy of the hedged requests. If there is no response of the get or head call after the hedge delay then the second,
+ * identical call is sent and the first successful response is used, the other call is cancelled.
+ * <p>
+ * Hedge delay is the {@link #setPercentile(double) percentile} of the latencies of the last calls to the same endpoint
+ * (method, host and path), so only the slowest calls are hedged. Number of the hedges is limited by the budget: every
+ * response gives back {@link #setBudget(float) part} of the token and every hedge takes one token.
+ *
+ * @author Rafal Zajfert
+ * @see RestApiConfiguration#setHedgePolicy(HedgePolicy)
+ * @see Request#setHedgePolicy(HedgePolicy)
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class HedgePolicy {
+
+	private static final int MAX_ENDPOINTS = 64;
+	private static final float MAX_TOKENS = 10;
+
+	private final LinkedHashMap<String, Latencies> endpoints = new LinkedHashMap<>(16, 0.75f, true);
+	private double percentile = 0.95;
+	private int sampleSize = 100;
+	private int minSamples = 20;
+	private long minDelay = 10;
+	private float budget = 0.05f;
+	private float tokens = MAX_TOKENS;
+
+	/**
+	 * Sets percentile (between 0 and 1) of the endpoint latency after which the hedge is sent
+	 * <p>
+	 * default: 0.95
+	 */
+	public HedgePolicy setPercentile(double percentile) {
+		if (percentile <= 0 || percentile >= 1) {
+			throw new IllegalArgumentException("percentile must be between 0 and 1: " + percentile);
+		}
+		this.percentile = percentile;
+		return this;
+	}
+
+	public double getPercentile() {
+		return percentile;
+	}
+
+	/**
+	 * Sets number of the last latencies of each endpoint used to calculate hedge delay
+	 * <p>
+	 * default: 100
+	 */
+	public synchronized HedgePolicy setSampleSize(int sampleSize) {
+		if (sampleSize <= 0) {
+			throw new IllegalArgumentException("sampleSize < 1: " + sampleSize);
+		}
+		this.sampleSize = sampleSize;
+		endpoints.clear();
+		return this;
+	}
+
+	public int getSampleSize() {
+		return sampleSize;
+	}
+
+	/**
+	 * Sets number of the latencies of the endpoint that must be known before its calls are hedged
+	 * <p>
+	 * default: 20
+	 */
+	public HedgePolicy setMinSamples(int minSamples) {
+		if (minSamples <= 0) {
+			throw new IllegalArgumentException("minSamples < 1: " + minSamples);
+		}
+		this.minSamples = minSamples;
+		return this;
+	}
+
+	public int getMinSamples() {
+		return minSamples;
+	}
+
+	/**
+	 * Sets minimum hedge delay in milliseconds
+	 * <p>
+	 * default: 10ms
+	 */
+	public HedgePolicy setMinDelay(long millis) {
+		if (millis < 0) {
+			throw new IllegalArgumentException("minDelay < 0: " + millis);
+		}
+		this.minDelay = millis;
+		return this;
+	}
+
+	public long getMinDelay() {
+		return minDelay;
+	}
+
+	/**
+	 * Sets maximum number of the hedges as part of all calls e.g. 0.05 allows to hedge every 20th call
+	 * <p>
+	 * default: 0.05
+	 */
+	public synchronized HedgePolicy setBudget(float budget) {
+		if (budget < 0 || budget > 1) {
+			throw new IllegalArgumentException("budget must be between 0 and 1: " + budget);
+		}
+		this.budget = budget;
+		return this;
+	}
+
+	public float getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Returns delay in milliseconds after which call of the endpoint should be hedged or -1 if there is not enough latency samples
+	 */
+	synchronized long getHedgeDelay(@NonNull String endpoint) {
+		Latencies latencies = endpoints.get(endpoint);
+		if (latencies == null || latencies.count < minSamples) {
+			return -1;
+		}
+		return Math.max(minDelay, latencies.getPercentile(percentile));
+	}
+
+	/**
+	 * Records latency of the call to the endpoint
+	 */
+	synchronized void record(@NonNull String endpoint, long millis) {
+		Latencies latencies = endpoints.get(endpoint);
+		if (latencies == null) {
+			latencies = new Latencies(sampleSize);
+			endpoints.put(endpoint, latencies);
+			if (endpoints.size() > MAX_ENDPOINTS) {
+				Iterator<Latencies> iterator = endpoints.values().iterator();
+				iterator.next();
+				iterator.remove();
+			}
+		}
+		latencies.add(millis);
+		tokens = Math.min(MAX_TOKENS, tokens + budget);
+	}
+
+	/**
+	 * Takes token from the budget
+	 *
+	 * @return false if hedge budget is exhausted
+	 */
+	synchronized boolean acquireHedge() {
+		if (tokens < 1) {
+			return false;
+		}
+		tokens--;
+		return true;
+	}
+
+	/**
+	 * Last latencies of one endpoint
+	 */
+	private static class Latencies {
+		private final long[] samples;
+		private int count;
+		private int next;
+
+		Latencies(int size) {
+			samples = new long[size];
+		}
+
+		void add(long millis) {
+			samples[next] = millis;
+			next = (next + 1) % samples.length;
+			if (count < samples.length) {
+				count++;
+			}
+		}
+
+		long getPercentile(double percentile) {
+			long[] sorted = Arrays.copyOf(samples, count);
+			Arrays.sort(sorted);
+			return sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+import software.rsquared.restapi.serialization.JsonSerializer;
+
+/**
+ * Request body of the json parameters. Bodies smaller than {@link #MAX_BUFFERED_SIZE} are serialized once to the memory,
+ * so their exact length is sent in the Content-Length header. Larger bodies are written directly to the connection sink
+ * (chunked), so the whole body is never held in the memory.
+ * Body is written from the same parameters each time so it can be sent again e.g. after redirect
+ *
+ * @author Rafal Zajfert
+ */
+class JsonRequestBody extends RequestBody {
+
+	/**
+	 * Maximum size of the body which is buffered in the memory
+	 */
+	static final long MAX_BUFFERED_SIZE = 64 * 1024;
+
+	@NonNull
+	private final JsonSerializer serializer;
+	@NonNull
+	private final List<Parameter> parameters;
+	@Nullable
+	private volatile ByteString content;
+	private volatile boolean streamed;
+
+	JsonRequestBody(@NonNull JsonSerializer serializer, @NonNull List<Parameter> parameters) {
+		this.serializer = serializer;
+		this.parameters = new ArrayList<>(parameters);
+	}
+
+	@Nullable
+	@Override
+	public MediaType contentType() {
+		return Request.APPLICATION_JSON;
+	}
+
+	@Override
+	public long contentLength() throws IOException {
+		ByteString content = buffer();
+		return content == null ? -1 : content.size();
+	}
+
+	@Override
+	public void writeTo(@NonNull BufferedSink sink) throws IOException {
+		ByteString content = buffer();
+		if (content != null) {
+			sink.write(content);
+		} else {
+			serializer.writeJson(parameters, sink.outputStream());
+		}
+	}
+
+	/**
+	 * Returns serialized body or null if it is larger than {@link #MAX_BUFFERED_SIZE} and must be streamed
+	 */
+	@Nullable
+	private ByteString buffer() throws IOException {
+		if (content == null && !streamed) {
+			LimitedStream stream = new LimitedStream(MAX_BUFFERED_SIZE);
+			try {
+				serializer.writeJson(parameters, stream);
+				content = stream.buffer.readByteString();
+			} catch (LimitExceededException e) {
+				streamed = true;
+			}
+		}
+		return content;
+	}
+
+	/**
+	 * Returns beginning of the body (up to {@code maxBytes} bytes), serialization is stopped when the limit is reached
+	 */
+	@NonNull
+	String preview(long maxBytes) throws IOException {
+		LimitedStream stream = new LimitedStream(maxBytes);
+		try {
+			serializer.writeJson(parameters, stream);
+		} catch (LimitExceededException e) {
+			return stream.buffer.readUtf8() + "\n(...)";
+		}
+		return stream.buffer.readUtf8();
+	}
+
+	/**
+	 * Stream which keeps written bytes in the memory and throws {@link LimitExceededException} when more than {@code maxBytes} is written
+	 */
+	private static class LimitedStream extends OutputStream {
+		private final Buffer buffer = new Buffer();
+		private final long maxBytes;
+
+		LimitedStream(long maxBytes) {
+			this.maxBytes = maxBytes;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			checkLimit(1);
+			buffer.writeByte(b);
+		}
+
+		@Override
+		public void write(@NonNull byte[] b, int off, int len) throws IOException {
+			long available = maxBytes - buffer.size();
+			if (len > available) {
+				buffer.write(b, off, (int) available);
+				throw new LimitExceededException();
+			}
+			buffer.write(b, off, len);
+		}
+
+		private void checkLimit(int bytes) throws LimitExceededException {
+			if (buffer.size() + bytes > maxBytes) {
+				throw new LimitExceededException();
+			}
+		}
+	}
+
+	private static class LimitExceededException extends IOException {
+		private static final long serialVersionUID = 1L;
+	}
+}
@@ -0,0 +1,213 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory cache of the deserialized request results. Results are cached only for request classes with time to live
+ * set by {@link #setTimeToLive(Class, long)} or {@link #setDefaultTimeToLive(long)}. When cache is full the least recently used
+ * results are removed.
+ * <p>
+ * Cached object is returned to every request with the same key so it must be treated as immutable,
+ * requests whose results are modified shouldn't be cached (see {@link Request#getCacheKey(okhttp3.HttpUrl)})
+ *
+ * @author Rafal Zajfert
+ * @see RestApiConfiguration#setObjectCache(ObjectCache)
+ * @see Request#getCacheKey(okhttp3.HttpUrl)
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class ObjectCache {
+
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<Class<?>, Long> timeToLive = new ConcurrentHashMap<>();
+	private long defaultTimeToLive = 0;
+	private int maxEntries = 100;
+	private long maxWeight = Long.MAX_VALUE;
+	@Nullable
+	private Weigher weigher;
+	private long weight;
+
+	/**
+	 * Sets maximum number of the cached results
+	 * <p>
+	 * default: 100
+	 */
+	public synchronized ObjectCache setMaxEntries(int maxEntries) {
+		if (maxEntries <= 0) {
+			throw new IllegalArgumentException("maxEntries < 1: " + maxEntries);
+		}
+		this.maxEntries = maxEntries;
+		trim();
+		return this;
+	}
+
+	/**
+	 * Sets maximum total weight of the cached results, weight of the result is calculated by the {@link #setWeigher(Weigher) weigher}
+	 * <p>
+	 * default: {@link Long#MAX_VALUE}
+	 */
+	public synchronized ObjectCache setMaxWeight(long maxWeight) {
+		if (maxWeight <= 0) {
+			throw new IllegalArgumentException("maxWeight < 1: " + maxWeight);
+		}
+		this.maxWeight = maxWeight;
+		trim();
+		return this;
+	}
+
+	/**
+	 * Sets weigher of the cached results, results which weight is greater than {@link #setMaxWeight(long) max weight} are not cached
+	 * <p>
+	 * default: every result weighs 1
+	 */
+	public synchronized ObjectCache setWeigher(@Nullable Weigher weigher) {
+		this.weigher = weigher;
+		invalidateAll();
+		return this;
+	}
+
+	/**
+	 * Sets time in milliseconds for which results of the given request class (and its subclasses) are cached, 0 disables cache of this class
+	 */
+	@SuppressWarnings("rawtypes")
+	public ObjectCache setTimeToLive(@NonNull Class<? extends Request> requestClass, long millis) {
+		if (millis < 0) {
+			throw new IllegalArgumentException("timeToLive < 0: " + millis);
+		}
+		timeToLive.put(requestClass, millis);
+		return this;
+	}
+
+	/**
+	 * Sets time in milliseconds for which results of the requests without own {@link #setTimeToLive(Class, long) time to live} are cached
+	 * <p>
+	 * default: 0 (results are not cached)
+	 */
+	public ObjectCache setDefaultTimeToLive(long millis) {
+		if (millis < 0) {
+			throw new IllegalArgumentException("timeToLive < 0: " + millis);
+		}
+		this.defaultTimeToLive = millis;
+		return this;
+	}
+
+	/**
+	 * Returns time in milliseconds for which results of the given request class are cached
+	 */
+	public long getTimeToLive(@NonNull Class<?> requestClass) {
+		for (Class<?> cls = requestClass; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+			Long millis = timeToLive.get(cls);
+			if (millis != null) {
+				return millis;
+			}
+		}
+		return defaultTimeToLive;
+	}
+
+	/**
+	 * Returns cached result or null if there is no valid result for the given key
+	 */
+	@Nullable
+	public synchronized Object get(@NonNull String key) {
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.expiresAt <= now()) {
+			remove(key);
+			return null;
+		}
+		return entry.value;
+	}
+
+	/**
+	 * Caches result for given time
+	 */
+	public synchronized void put(@NonNull String key, @NonNull Object value, long timeToLive) {
+		if (timeToLive <= 0) {
+			return;
+		}
+		int entryWeight = weigher == null ? 1 : weigher.weigh(key, value);
+		remove(key);
+		if (entryWeight > maxWeight) {
+			return;
+		}
+		long now = now();
+		long expiresAt = now > 0 && timeToLive > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + timeToLive;
+		entries.put(key, new Entry(value, entryWeight, expiresAt));
+		weight += entryWeight;
+		trim();
+	}
+
+	/**
+	 * Removes all results which keys starts with the given prefix
+	 */
+	public synchronized void invalidate(@NonNull String keyPrefix) {
+		Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<String, Entry> entry = iterator.next();
+			if (entry.getKey().startsWith(keyPrefix)) {
+				weight -= entry.getValue().weight;
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Removes all cached results
+	 */
+	public synchronized void invalidateAll() {
+		entries.clear();
+		weight = 0;
+	}
+
+	/**
+	 * Returns number of the cached results, including expired ones which were not removed yet
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	private void remove(@NonNull String key) {
+		Entry entry = entries.remove(key);
+		if (entry != null) {
+			weight -= entry.weight;
+		}
+	}
+
+	private void trim() {
+		Iterator<Entry> iterator = entries.values().iterator();
+		while ((entries.size() > maxEntries || weight > maxWeight) && iterator.hasNext()) {
+			weight -= iterator.next().weight;
+			iterator.remove();
+		}
+	}
+
+	private static long now() {
+		return System.nanoTime() / 1000000;
+	}
+
+	/**
+	 * Calculates weight of the cached result e.g. approximate size in bytes
+	 */
+	public interface Weigher {
+		int weigh(@NonNull String key, @NonNull Object value);
+	}
+
+	private static class Entry {
+		private final Object value;
+		private final int weight;
+		private final long expiresAt;
+
+		Entry(Object value, int weight, long expiresAt) {
+			this.value = value;
+			this.weight = weight;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
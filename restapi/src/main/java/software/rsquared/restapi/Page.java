@@ -0,0 +1,28 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * One page of the paginated collection
+ *
+ * @author Rafal Zajfert
+ * @see PageList
+ * @see PageLoader
+ */
+public interface Page<T> {
+
+	/**
+	 * Returns items of this page
+	 */
+	@NonNull
+	List<T> getItems();
+
+	/**
+	 * Returns cursor of the next page (e.g. url from the Link header or value of the body field) or null if this is the last page
+	 */
+	@Nullable
+	String getNextCursor();
+}
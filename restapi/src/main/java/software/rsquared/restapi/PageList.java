@@ -0,0 +1,84 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import okhttp3.Headers;
+
+/**
+ * Page read from the json array. Cursor of the next page is not a part of the body, it should be set by the
+ * {@link Request#readHeaders(Headers, Object)} e.g. by the {@link #readNextLink(Headers)}:
+ * <pre>
+ * public class ItemsPage extends PageList&lt;Item&gt; {
+ * }
+ *
+ * public class GetItemsRequest extends GetRequest&lt;ItemsPage&gt; {
+ *     ...
+ *     protected void readHeaders(Headers headers, ItemsPage result) {
+ *         result.readNextLink(headers);
+ *     }
+ * }
+ * </pre>
+ *
+ * @author Rafal Zajfert
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class PageList<T> extends ArrayList<T> implements Page<T> {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final Pattern LINK = Pattern.compile("<([^>]*)>((?:\\s*;\\s*[^;,]*)*)");
+	private static final Pattern REL = Pattern.compile("rel\\s*=\\s*\"?([^\";,]*)\"?");
+
+	@Nullable
+	private String nextCursor;
+
+	@NonNull
+	@Override
+	public List<T> getItems() {
+		return this;
+	}
+
+	@Nullable
+	@Override
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(@Nullable String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+
+	/**
+	 * Sets url of the next page from the Link header (rel="next"), cursor is null if there is no such link
+	 */
+	public void readNextLink(@NonNull Headers headers) {
+		nextCursor = getLink(headers, "next");
+	}
+
+	/**
+	 * Returns url of the Link header with given relation type or null if there is no such link
+	 */
+	@Nullable
+	public static String getLink(@NonNull Headers headers, @NonNull String rel) {
+		for (String value : headers.values("Link")) {
+			Matcher link = LINK.matcher(value);
+			while (link.find()) {
+				Matcher relation = REL.matcher(link.group(2));
+				if (relation.find()) {
+					for (String type : relation.group(1).trim().split("\\s+")) {
+						if (rel.equalsIgnoreCase(type)) {
+							return link.group(1);
+						}
+					}
+				}
+			}
+		}
+		return null;
+	}
+}
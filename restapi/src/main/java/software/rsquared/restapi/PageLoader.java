@@ -0,0 +1,21 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Creates requests of the pages of the paginated collection
+ *
+ * @author Rafal Zajfert
+ * @see RestApi#publish(PageLoader)
+ */
+public interface PageLoader<T> {
+
+	/**
+	 * Creates request of the page
+	 *
+	 * @param cursor {@link Page#getNextCursor() cursor} returned with the previous page or null for the first page
+	 */
+	@NonNull
+	Request<? extends Page<T>> createRequest(@Nullable String cursor);
+}
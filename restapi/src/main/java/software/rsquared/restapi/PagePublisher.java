@@ -0,0 +1,221 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import software.rsquared.restapi.exceptions.RequestException;
+import software.rsquared.restapi.listeners.RequestListener;
+
+/**
+ * Publisher of the items of the paginated collection. Pages are requested only when subscriber requested more items than
+ * are buffered, so at most one page is loaded at a time and memory usage doesn't depend on the size of the collection.
+ * Every subscriber loads the collection from the first page.
+ * <p>
+ * Subscriber is invoked on the thread which finished the page request or on the thread that called {@link Subscription#request(long)}.
+ *
+ * @author Rafal Zajfert
+ * @see RestApi#publish(PageLoader)
+ */
+class PagePublisher<T> implements Publisher<T> {
+
+	@NonNull
+	private final PageLoader<T> loader;
+
+	PagePublisher(@NonNull PageLoader<T> loader) {
+		this.loader = loader;
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super T> subscriber) {
+		if (subscriber == null) {
+			throw new NullPointerException("subscriber == null");
+		}
+		PageSubscription subscription = new PageSubscription(subscriber);
+		subscriber.onSubscribe(subscription);
+	}
+
+	/**
+	 * Subscription of one subscriber. All signals are sent from the {@link #drain()} loop, so they are never concurrent
+	 */
+	private class PageSubscription implements Subscription {
+		@NonNull
+		private final Subscriber<? super T> subscriber;
+		private final AtomicInteger wip = new AtomicInteger();
+		private final ArrayDeque<T> buffer = new ArrayDeque<>();
+		private long requested;
+		private boolean loading;
+		private boolean lastPage;
+		@Nullable
+		private String cursor;
+		@Nullable
+		private Throwable error;
+		@Nullable
+		private Request<?> request;
+		private volatile boolean cancelled;
+		private boolean terminated;
+
+		PageSubscription(@NonNull Subscriber<? super T> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(long n) {
+			synchronized (this) {
+				if (n <= 0) {
+					error = new IllegalArgumentException("Non-positive number of the items requested: " + n);
+					buffer.clear();
+				} else {
+					requested = requested + n < 0 ? Long.MAX_VALUE : requested + n;
+				}
+			}
+			drain();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			Request<?> request;
+			synchronized (this) {
+				request = this.request;
+				this.request = null;
+			}
+			if (request != null) {
+				request.cancel();
+			}
+			drain();
+		}
+
+		private void drain() {
+			if (wip.getAndIncrement() != 0) {
+				return;
+			}
+			int missed = 1;
+			do {
+				if (terminated) {
+					return;
+				}
+				if (cancelled) {
+					synchronized (this) {
+						buffer.clear();
+					}
+					terminated = true;
+					return;
+				}
+				boolean load;
+				synchronized (this) {
+					load = error == null && !loading && !lastPage && buffer.size() < requested;
+					loading |= load;
+				}
+				if (load) {
+					loadPage();
+				}
+				while (!cancelled) {
+					T item;
+					synchronized (this) {
+						if (requested == 0 || buffer.isEmpty()) {
+							break;
+						}
+						item = buffer.poll();
+						if (requested != Long.MAX_VALUE) {
+							requested--;
+						}
+					}
+					subscriber.onNext(item);
+				}
+				Throwable error;
+				boolean complete;
+				synchronized (this) {
+					error = buffer.isEmpty() ? this.error : null;
+					complete = lastPage && !loading && buffer.isEmpty();
+				}
+				if (!cancelled && error != null) {
+					terminated = true;
+					subscriber.onError(error);
+					return;
+				}
+				if (!cancelled && complete) {
+					terminated = true;
+					subscriber.onComplete();
+					return;
+				}
+				missed = wip.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		private void loadPage() {
+			Request<? extends Page<T>> request;
+			try {
+				request = loader.createRequest(cursor);
+			} catch (RuntimeException e) {
+				onPageFailed(e);
+				return;
+			}
+			execute(request);
+		}
+
+		private <P extends Page<T>> void execute(@NonNull Request<P> request) {
+			synchronized (this) {
+				this.request = request;
+			}
+			request.setCallbackExecutor(CallbackExecutors.direct());
+			request.execute(new RequestListener<P>() {
+				@Override
+				public void onSuccess(P page) {
+					onPageLoaded(page);
+				}
+
+				@Override
+				public void onFailed(RequestException e) {
+					onPageFailed(e);
+				}
+
+				@Override
+				public void onCanceled() {
+					onPageFailed(new CancellationException("Page request was cancelled"));
+				}
+			});
+			if (cancelled) {
+				request.cancel();
+			}
+		}
+
+		private void onPageLoaded(@Nullable Page<T> page) {
+			synchronized (this) {
+				request = null;
+				loading = false;
+				String nextCursor = page == null ? null : page.getNextCursor();
+				if (page != null && !cancelled) {
+					for (T item : page.getItems()) {
+						// null items are not allowed by the reactive streams
+						if (item != null) {
+							buffer.add(item);
+						}
+					}
+				}
+				// the same cursor would load the same page again
+				lastPage = nextCursor == null || nextCursor.equals(cursor);
+				cursor = nextCursor;
+			}
+			drain();
+		}
+
+		private void onPageFailed(@NonNull Throwable e) {
+			synchronized (this) {
+				request = null;
+				loading = false;
+				if (error == null) {
+					error = e;
+				}
+			}
+			drain();
+		}
+	}
+}
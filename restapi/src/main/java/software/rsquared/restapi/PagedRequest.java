@@ -0,0 +1,256 @@
+package software.rsquared.restapi;
+
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.RequiresApi;
+import android.support.annotation.WorkerThread;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+
+import software.rsquared.restapi.exceptions.PageException;
+import software.rsquared.restapi.exceptions.RequestException;
+import software.rsquared.restapi.listeners.RequestListener;
+
+/**
+ * Paginated collection which loads its pages lazily while it is iterated. Next pages are {@link #setPrefetch(int) prefetched}
+ * on the dispatcher while the current page is consumed, so loading of the page doesn't add to the processing time.
+ * Iterator blocks the calling thread when the next page is not loaded yet, so it must not be used on the main thread.
+ * If page couldn't be loaded then iterator throws {@link PageException}.
+ * <pre>
+ * public class ItemsRequest extends PagedRequest&lt;Item&gt; {
+ *     protected Request&lt;? extends Page&lt;Item&gt;&gt; createRequest(String cursor, int pageSize) {
+ *         return new GetItemsPageRequest(cursor, pageSize);
+ *     }
+ * }
+ *
+ * for (Item item : new ItemsRequest().setPrefetch(2)) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * @author Rafal Zajfert
+ * @see RestApi#publish(PageLoader)
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public abstract class PagedRequest<T> implements Iterable<T> {
+
+	private int prefetch = 1;
+	private int pageSize;
+
+	/**
+	 * Creates request of the page
+	 *
+	 * @param cursor   cursor returned by the {@link #getNextCursor(Page)} for the previous page or null for the first page
+	 * @param pageSize preferred number of the items of the page or 0 if the default size should be used
+	 */
+	@NonNull
+	protected abstract Request<? extends Page<T>> createRequest(@Nullable String cursor, int pageSize);
+
+	/**
+	 * Returns cursor of the page following given one or null if it is the last page. By default {@link Page#getNextCursor()} is used
+	 */
+	@Nullable
+	protected String getNextCursor(@NonNull Page<T> page) {
+		return page.getNextCursor();
+	}
+
+	/**
+	 * Sets number of the pages loaded in advance, while the current page is consumed. 0 disables prefetching
+	 * <p>
+	 * default: 1
+	 */
+	public PagedRequest<T> setPrefetch(int prefetch) {
+		if (prefetch < 0) {
+			throw new IllegalArgumentException("prefetch < 0: " + prefetch);
+		}
+		this.prefetch = prefetch;
+		return this;
+	}
+
+	public int getPrefetch() {
+		return prefetch;
+	}
+
+	/**
+	 * Sets preferred number of the items of the page passed to the {@link #createRequest(String, int)}, 0 means the default size
+	 * <p>
+	 * default: 0
+	 */
+	public PagedRequest<T> setPageSize(int pageSize) {
+		if (pageSize < 0) {
+			throw new IllegalArgumentException("pageSize < 0: " + pageSize);
+		}
+		this.pageSize = pageSize;
+		return this;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Returns iterator which loads the pages from the first one. Every iterator loads pages independently
+	 */
+	@WorkerThread
+	@NonNull
+	@Override
+	public Iterator<T> iterator() {
+		return new PageIterator(prefetch, pageSize);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@RequiresApi(api = Build.VERSION_CODES.N)
+	@WorkerThread
+	@Override
+	public Spliterator<T> spliterator() {
+		return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED);
+	}
+
+	/**
+	 * Iterator of the items of the loaded pages. Next page request is started when there are less than {@code prefetch}
+	 * pages loaded in advance
+	 */
+	private class PageIterator implements Iterator<T> {
+		private final int prefetch;
+		private final int pageSize;
+		private final ArrayDeque<List<T>> pages = new ArrayDeque<>();
+		@NonNull
+		private Iterator<T> current = Collections.<T>emptyList().iterator();
+		@Nullable
+		private String cursor;
+		private boolean loading;
+		private boolean lastPage;
+		@Nullable
+		private RequestException error;
+		@Nullable
+		private Request<?> request;
+
+		PageIterator(int prefetch, int pageSize) {
+			this.prefetch = prefetch;
+			this.pageSize = pageSize;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (current.hasNext()) {
+				return true;
+			}
+			synchronized (this) {
+				while (!current.hasNext()) {
+					List<T> page = pages.poll();
+					if (page != null) {
+						current = page.iterator();
+						continue;
+					}
+					if (error != null) {
+						throw new PageException(error);
+					}
+					if (lastPage && !loading) {
+						return false;
+					}
+					loadNext(true);
+					// request couldn't be started or already failed on this thread, error is checked again by the loop
+					if (loading) {
+						await();
+					}
+				}
+				loadNext(false);
+				return true;
+			}
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return current.next();
+		}
+
+		/**
+		 * Starts loading of the next page if it is needed now or there are less than {@code prefetch} pages loaded in advance
+		 */
+		private void loadNext(boolean needed) {
+			if (loading || lastPage || error != null || (!needed && pages.size() >= prefetch)) {
+				return;
+			}
+			Request<? extends Page<T>> request;
+			try {
+				request = createRequest(cursor, pageSize);
+			} catch (RuntimeException e) {
+				error = new RequestException(e);
+				return;
+			}
+			loading = true;
+			execute(request);
+		}
+
+		private <P extends Page<T>> void execute(@NonNull Request<P> request) {
+			this.request = request;
+			request.setCallbackExecutor(CallbackExecutors.direct());
+			request.execute(new RequestListener<P>() {
+				@Override
+				public void onSuccess(P page) {
+					onPageLoaded(page);
+				}
+
+				@Override
+				public void onFailed(RequestException e) {
+					onPageFailed(e);
+				}
+
+				@Override
+				public void onCanceled() {
+					onPageFailed(new RequestException(new CancellationException("Page request was cancelled")));
+				}
+			});
+		}
+
+		private synchronized void onPageLoaded(@Nullable Page<T> page) {
+			request = null;
+			loading = false;
+			String nextCursor = page == null ? null : getNextCursor(page);
+			if (page != null && !page.getItems().isEmpty()) {
+				pages.add(page.getItems());
+			}
+			// the same cursor would load the same page again
+			lastPage = nextCursor == null || nextCursor.equals(cursor);
+			cursor = nextCursor;
+			loadNext(false);
+			notifyAll();
+		}
+
+		private synchronized void onPageFailed(@NonNull RequestException e) {
+			request = null;
+			loading = false;
+			error = e;
+			notifyAll();
+		}
+
+		/**
+		 * Waits for the page request, request is cancelled if the thread is interrupted
+		 */
+		private void await() {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				Request<?> request = this.request;
+				if (request != null) {
+					request.cancel();
+				}
+				throw new PageException(new RequestException(e));
+			}
+		}
+	}
+}
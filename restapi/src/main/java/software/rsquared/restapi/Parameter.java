@@ -1,5 +1,7 @@
 package software.rsquared.restapi;
 
+import android.support.annotation.NonNull;
+
 /**
  * Object contains pair, name and value of the request parameter
  *
@@ -11,6 +13,9 @@ public class Parameter {
 	@SuppressWarnings("WeakerAccess")
 	public static final String FILE_REGEX = "^_file\\{(.+)\\}$";
 
+	private static final String FILE_PREFIX = "_file{";
+	private static final String FILE_SUFFIX = "}";
+
 	private String name;
 
 	private Object value;
@@ -45,11 +50,16 @@ public class Parameter {
 	 * Checks if value is path to file (string matches "_file{...}")
 	 */
 	public boolean isFile() {
-		return value instanceof String && ((String) value).matches(FILE_REGEX);
+		return value instanceof String && isFilePath((String) value);
 	}
 
 	public String getFilePath() {
-		return ((String) value).replaceAll(FILE_REGEX, "$1");
+		String path = (String) value;
+		return isFilePath(path) ? path.substring(FILE_PREFIX.length(), path.length() - FILE_SUFFIX.length()) : path;
+	}
+
+	private static boolean isFilePath(@NonNull String value) {
+		return value.length() > FILE_PREFIX.length() + FILE_SUFFIX.length() && value.startsWith(FILE_PREFIX) && value.endsWith(FILE_SUFFIX);
 	}
 
 }
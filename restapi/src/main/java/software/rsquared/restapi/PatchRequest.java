@@ -27,6 +27,6 @@ public abstract class PatchRequest<T> extends Request<T> {
 			builder.addHeader(entry.getKey(), entry.getValue());
 		}
 		builder.patch(getRequestBody());
-		return httpClient.newCall(builder.build());
+		return getHttpClient().newCall(builder.build());
 	}
 }
@@ -0,0 +1,53 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.NonNull;
+
+import java.util.List;
+
+import okhttp3.HttpUrl;
+
+/**
+ * Template of the url path where * matches one path segment e.g. /users/&#42;/posts
+ *
+ * @author Rafal Zajfert
+ */
+class PathTemplate {
+
+	private final String template;
+	private final String[] segments;
+
+	PathTemplate(@NonNull String template) {
+		String path = template.startsWith("/") ? template.substring(1) : template;
+		this.template = "/" + path;
+		this.segments = path.split("/", -1);
+	}
+
+	/**
+	 * Returns true if path of the url matches this template
+	 */
+	boolean matches(@NonNull HttpUrl url) {
+		List<String> pathSegments = url.pathSegments();
+		if (segments.length != pathSegments.size()) {
+			return false;
+		}
+		for (int i = 0; i < segments.length; i++) {
+			if (!"*".equals(segments[i]) && !segments[i].equals(pathSegments.get(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns key built from the host of the url and this template
+	 */
+	@NonNull
+	String getKey(@NonNull HttpUrl url) {
+		return url.host() + template;
+	}
+
+	@Override
+	public String toString() {
+		return template;
+	}
+}
@@ -1,13 +1,15 @@
 package software.rsquared.restapi;
 
-import android.os.Handler;
-import android.os.Looper;
 import android.support.annotation.CallSuper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import software.rsquared.restapi.exceptions.RequestException;
 import software.rsquared.restapi.listeners.RequestListener;
@@ -19,25 +21,39 @@ import software.rsquared.restapi.listeners.RequestPoolListener;
  * @author Rafal Zajfert
  */
 @SuppressWarnings({"WeakerAccess", "UnusedReturnValue"})
-abstract class PoolRequest<P extends PoolRequest> {
+abstract class PoolRequest<P extends PoolRequest<P>> {
 
-	protected Map<Integer, Request> requestPool = new LinkedHashMap<>();
+	protected Map<Integer, Request<?>> requestPool = new LinkedHashMap<>();
 
 	protected boolean executed;
 
-	protected RequestExecutor executor;
+	protected final List<RequestFuture<?>> futures = Collections.synchronizedList(new ArrayList<>());
 
 	protected boolean cancelled;
 
 	@Nullable
 	private RequestPoolListener listener;
-	private Handler handler;
+	@NonNull
+	private Executor callbackExecutor;
 
-	protected PoolRequest(int poolSize) {
-		executor = new RequestExecutor(poolSize, 0L);
+	protected PoolRequest() {
+		RestApiConfiguration configuration = RestApi.getConfiguration();
+		callbackExecutor = configuration != null ? configuration.getCallbackExecutor() : CallbackExecutors.mainThread();
 	}
 
-	public P addTask(@NonNull Request request, int requestCode) {
+	/**
+	 * Sets executor on which listener callbacks of this pool are invoked
+	 *
+	 * @see RestApiConfiguration#setCallbackExecutor(Executor)
+	 */
+	@SuppressWarnings("unchecked")
+	public P setCallbackExecutor(@NonNull Executor callbackExecutor) {
+		this.callbackExecutor = callbackExecutor;
+		return (P) this;
+	}
+
+	@SuppressWarnings("unchecked")
+	public P addTask(@NonNull Request<?> request, int requestCode) {
 		if (executed) {
 			throw new IllegalStateException("New task cannot be added to the pool after executing.");
 		}
@@ -45,7 +61,6 @@ abstract class PoolRequest<P extends PoolRequest> {
 			throw new IllegalArgumentException("Task with this requestCode (" + requestCode + ") was already added.");
 		}
 		requestPool.put(requestCode, request);
-		//noinspection unchecked
 		return (P) this;
 	}
 
@@ -59,19 +74,19 @@ abstract class PoolRequest<P extends PoolRequest> {
 
 	protected void onPreExecute() {
 		if (listener != null) {
-			getHandler().post(() -> listener.onPreExecute());
+			listener.onPreExecute();
 		}
 	}
 
 	protected void onTaskSuccess(Object result, int requestCode) {
 		if (listener != null) {
-			getHandler().post(() -> listener.onTaskSuccess(result, requestCode));
+			listener.onTaskSuccess(result, requestCode);
 		}
 	}
 
 	protected void onFailed(RequestException e, int requestCode) {
 		if (listener != null) {
-			getHandler().post(() -> listener.onFailed(e, requestCode));
+			listener.onFailed(e, requestCode);
 		}
 	}
 
@@ -81,19 +96,19 @@ abstract class PoolRequest<P extends PoolRequest> {
 
 	protected void onCanceled() {
 		if (listener != null) {
-			getHandler().post(() -> listener.onCanceled());
+			listener.onCanceled();
 		}
 	}
 
 	protected void onSuccess(Map<Integer, Object> results) {
 		if (listener != null) {
-			getHandler().post(() -> listener.onSuccess(results));
+			listener.onSuccess(results);
 		}
 	}
 
 	protected void onPostExecute() {
 		if (listener != null) {
-			getHandler().post(() -> listener.onPostExecute());
+			listener.onPostExecute();
 		}
 	}
 
@@ -101,19 +116,33 @@ abstract class PoolRequest<P extends PoolRequest> {
 		stopExecute();
 	}
 
-	protected void stopExecute() {
-		executor.shutdownNow();
+	/**
+	 * Runs action on the callback executor. Listener of this pool is invoked directly by the on* methods, so they have to be
+	 * called from the callback executor, e.g. by the action posted by this method or by the request listener
+	 */
+	protected void post(@NonNull Runnable action) {
+		callbackExecutor.execute(action);
 	}
 
 	/**
-	 * Get handler for the main looper
+	 * Executes request of this pool on the dispatcher shared by all requests, listener is invoked on the callback executor of this pool
 	 */
-	@NonNull
-	private Handler getHandler() {
-		if (handler == null) {
-			handler = new Handler(Looper.getMainLooper());
+	@SuppressWarnings("unchecked")
+	protected void submit(@NonNull Request<?> request, @NonNull PoolRequestListener listener) {
+		request.setCallbackExecutor(callbackExecutor);
+		// pool listener accepts result of any type
+		futures.add(((Request<Object>) request).execute(listener));
+	}
+
+	protected void stopExecute() {
+		synchronized (futures) {
+			for (RequestFuture<?> future : futures) {
+				if (!future.isDone()) {
+					future.cancel(true);
+				}
+			}
+			futures.clear();
 		}
-		return handler;
 	}
 
 	abstract class PoolRequestListener implements RequestListener<Object> {
@@ -27,6 +27,6 @@ public abstract class PostRequest<T> extends Request<T> {
 			builder.addHeader(entry.getKey(), entry.getValue());
 		}
 		builder.post(getRequestBody());
-		return httpClient.newCall(builder.build());
+		return getHttpClient().newCall(builder.build());
 	}
 }
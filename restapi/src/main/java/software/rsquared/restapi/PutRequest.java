@@ -18,6 +18,14 @@ public abstract class PutRequest<T> extends Request<T> {
 	protected PutRequest() {
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean isIdempotent() {
+		return true;
+	}
+
 	@Override
 	protected Call createRequest(HttpUrl url) throws IOException {
 		okhttp3.Request.Builder builder = new okhttp3.Request.Builder()
@@ -27,6 +35,6 @@ public abstract class PutRequest<T> extends Request<T> {
 			builder.addHeader(entry.getKey(), entry.getValue());
 		}
 		builder.put(getRequestBody());
-		return httpClient.newCall(builder.build());
+		return getHttpClient().newCall(builder.build());
 	}
 }
@@ -0,0 +1,264 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.HttpUrl;
+import okhttp3.Response;
+
+/**
+ * Client side rate limiter. Calls are limited by the token buckets: {@link #setGlobalRate(double, int) global},
+ * per {@link #setHostRate(String, double, int) host} and per {@link #setEndpointRate(String, double, int) endpoint}.
+ * Request that has to wait for the token is delayed on the dispatcher, so it doesn't hold any thread.
+ * <p>
+ * Limiter also learns from the responses: after the 429 or 503 response with the Retry-After header, or the response with
+ * X-RateLimit-Remaining: 0 and X-RateLimit-Reset headers, calls to the host (or endpoint if it has its own rate) are paused
+ * until the given time. Requests that would wait longer than the {@link #setMaxWait(long) max wait} fail immediately
+ * with the {@link software.rsquared.restapi.exceptions.RequestException#RATE_LIMITED} code instead of wasting the quota.
+ *
+ * @author Rafal Zajfert
+ * @see RestApiConfiguration#setRateLimiter(RateLimiter)
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class RateLimiter {
+
+	private static final long DEFAULT_PAUSE = 1000;
+
+	@Nullable
+	private Bucket globalBucket;
+	private final Map<String, Bucket> hostBuckets = new HashMap<>();
+	private final List<PathTemplate> endpoints = new ArrayList<>();
+	private final Map<String, Bucket> endpointBuckets = new HashMap<>();
+	private final Map<String, Long> pausedUntil = new HashMap<>();
+	private long maxWait = 60 * 1000;
+
+	/**
+	 * Sets maximum number of the calls per second of all requests, {@code burst} calls can be executed at once
+	 */
+	public synchronized RateLimiter setGlobalRate(double callsPerSecond, int burst) {
+		globalBucket = new Bucket(callsPerSecond, burst);
+		return this;
+	}
+
+	/**
+	 * Sets maximum number of the calls per second to the host, {@code burst} calls can be executed at once
+	 */
+	public synchronized RateLimiter setHostRate(@NonNull String host, double callsPerSecond, int burst) {
+		hostBuckets.put(host, new Bucket(callsPerSecond, burst));
+		return this;
+	}
+
+	/**
+	 * Sets maximum number of the calls per second to the endpoint of every host, {@code burst} calls can be executed at once.
+	 * Template is the url path where * matches one path segment e.g. /users/&#42;/posts
+	 */
+	public synchronized RateLimiter setEndpointRate(@NonNull String pathTemplate, double callsPerSecond, int burst) {
+		PathTemplate template = new PathTemplate(pathTemplate);
+		endpoints.add(template);
+		endpointBuckets.put(template.toString(), new Bucket(callsPerSecond, burst));
+		return this;
+	}
+
+	/**
+	 * Sets maximum time in milliseconds that request can wait for the call, requests that would wait longer fail immediately
+	 * <p>
+	 * default: 1min
+	 */
+	public synchronized RateLimiter setMaxWait(long millis) {
+		if (millis < 0) {
+			throw new IllegalArgumentException("maxWait < 0: " + millis);
+		}
+		this.maxWait = millis;
+		return this;
+	}
+
+	public synchronized long getMaxWait() {
+		return maxWait;
+	}
+
+	/**
+	 * Pauses calls to the host or endpoint for given time
+	 *
+	 * @param key host or host and endpoint template
+	 */
+	public synchronized void pause(@NonNull String key, long millis) {
+		long until = now() + millis;
+		Long current = pausedUntil.get(key);
+		if (current == null || current < until) {
+			pausedUntil.put(key, until);
+		}
+	}
+
+	/**
+	 * Takes token for the call of the url
+	 *
+	 * @return delay in milliseconds after which call can be executed, or -1 if it's longer than {@link #setMaxWait(long) max wait}
+	 * and no token was taken
+	 */
+	synchronized long reserve(@NonNull HttpUrl url) {
+		return reserve(url, maxWait);
+	}
+
+	/**
+	 * Takes token for the call of the url only if the call can be executed immediately
+	 *
+	 * @return true if token was taken
+	 */
+	synchronized boolean tryReserve(@NonNull HttpUrl url) {
+		return reserve(url, 0) == 0;
+	}
+
+	private long reserve(@NonNull HttpUrl url, long maxWait) {
+		long now = now();
+		PathTemplate endpoint = getEndpoint(url);
+		Bucket hostBucket = hostBuckets.get(url.host());
+		Bucket endpointBucket = endpoint == null ? null : endpointBuckets.get(endpoint.toString());
+		long delay = getPause(url, endpoint, now);
+		if (globalBucket != null) {
+			delay = Math.max(delay, globalBucket.getDelay(now));
+		}
+		if (hostBucket != null) {
+			delay = Math.max(delay, hostBucket.getDelay(now));
+		}
+		if (endpointBucket != null) {
+			delay = Math.max(delay, endpointBucket.getDelay(now));
+		}
+		if (delay > maxWait) {
+			return -1;
+		}
+		if (globalBucket != null) {
+			globalBucket.take();
+		}
+		if (hostBucket != null) {
+			hostBucket.take();
+		}
+		if (endpointBucket != null) {
+			endpointBucket.take();
+		}
+		return delay;
+	}
+
+	/**
+	 * Returns time in milliseconds for which calls to the url are paused
+	 */
+	synchronized long getPause(@NonNull HttpUrl url) {
+		return getPause(url, getEndpoint(url), now());
+	}
+
+	/**
+	 * Learns limits from the response headers
+	 */
+	void onResponse(@NonNull HttpUrl url, @NonNull Response response) {
+		long pause = -1;
+		int code = response.code();
+		if (code == 429 || code == 503) {
+			pause = RestApiUtils.getRetryAfter(response);
+			if (pause < 0 && code == 429) {
+				pause = DEFAULT_PAUSE;
+			}
+		}
+		if ("0".equals(response.header("X-RateLimit-Remaining"))) {
+			pause = Math.max(pause, getRateLimitReset(response));
+		}
+		if (pause > 0) {
+			PathTemplate endpoint;
+			synchronized (this) {
+				endpoint = getEndpoint(url);
+			}
+			pause(endpoint == null ? url.host() : endpoint.getKey(url), pause);
+		}
+	}
+
+	/**
+	 * Returns time in milliseconds from the X-RateLimit-Reset header (seconds or epoch seconds) or -1 if there is no such header
+	 */
+	private static long getRateLimitReset(@NonNull Response response) {
+		String value = response.header("X-RateLimit-Reset");
+		if (value == null) {
+			return -1;
+		}
+		try {
+			long seconds = Long.parseLong(value.trim());
+			long nowSeconds = System.currentTimeMillis() / 1000;
+			// large values are the epoch time of the reset
+			return Math.max(0, (seconds > nowSeconds / 2 ? seconds - nowSeconds : seconds) * 1000);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private long getPause(@NonNull HttpUrl url, @Nullable PathTemplate endpoint, long now) {
+		long pause = getPause(url.host(), now);
+		if (endpoint != null) {
+			pause = Math.max(pause, getPause(endpoint.getKey(url), now));
+		}
+		return pause;
+	}
+
+	private long getPause(@NonNull String key, long now) {
+		Long until = pausedUntil.get(key);
+		if (until == null) {
+			return 0;
+		}
+		if (until <= now) {
+			pausedUntil.remove(key);
+			return 0;
+		}
+		return until - now;
+	}
+
+	@Nullable
+	private PathTemplate getEndpoint(@NonNull HttpUrl url) {
+		for (PathTemplate endpoint : endpoints) {
+			if (endpoint.matches(url)) {
+				return endpoint;
+			}
+		}
+		return null;
+	}
+
+	private static long now() {
+		return System.nanoTime() / 1000000;
+	}
+
+	/**
+	 * Token bucket, tokens can be taken in advance so the bucket can have negative number of tokens
+	 */
+	private static class Bucket {
+		private final double tokensPerMillis;
+		private final int capacity;
+		private double tokens;
+		private long updatedAt;
+
+		Bucket(double callsPerSecond, int burst) {
+			if (callsPerSecond <= 0) {
+				throw new IllegalArgumentException("callsPerSecond <= 0: " + callsPerSecond);
+			}
+			if (burst <= 0) {
+				throw new IllegalArgumentException("burst < 1: " + burst);
+			}
+			this.tokensPerMillis = callsPerSecond / 1000;
+			this.capacity = burst;
+			this.tokens = burst;
+			this.updatedAt = now();
+		}
+
+		/**
+		 * Returns time in milliseconds after which next token will be available
+		 */
+		long getDelay(long now) {
+			tokens = Math.min(capacity, tokens + (now - updatedAt) * tokensPerMillis);
+			updatedAt = now;
+			return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerMillis);
+		}
+
+		void take() {
+			tokens--;
+		}
+	}
+}
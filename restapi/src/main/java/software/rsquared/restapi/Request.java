@@ -3,12 +3,14 @@ package software.rsquared.restapi;
 import android.os.Build;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.annotation.RequiresApi;
 import android.support.annotation.WorkerThread;
 import android.text.TextUtils;
 import android.util.Log;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.security.KeyStore;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -18,7 +20,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLContext;
@@ -27,8 +32,7 @@ import javax.net.ssl.TrustManagerFactory;
 import javax.net.ssl.X509TrustManager;
 
 import okhttp3.Call;
-import okhttp3.CertificatePinner;
-import okhttp3.ConnectionPool;
+import okhttp3.Callback;
 import okhttp3.ConnectionSpec;
 import okhttp3.FormBody;
 import okhttp3.Headers;
@@ -40,9 +44,10 @@ import okhttp3.RequestBody;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
 import okhttp3.TlsVersion;
+import okio.ByteString;
 import software.rsquared.restapi.exceptions.InitialRequirementsException;
-import software.rsquared.restapi.exceptions.RefreshTokenException;
 import software.rsquared.restapi.exceptions.RequestException;
+import software.rsquared.restapi.exceptions.SerializationException;
 import software.rsquared.restapi.exceptions.UserServiceNotInitialized;
 import software.rsquared.restapi.listeners.RequestListener;
 import software.rsquared.restapi.serialization.Deserializer;
@@ -64,22 +69,57 @@ public abstract class Request<T> {
 
 	protected static final String ACCESS_TOKEN = "access_token";
 	protected static final String AUTHORIZATION = "BasicAuthorization";
+	protected static final String AUTHORIZATION_HEADER = "Authorization";
 	protected static final String CONTENT_TYPE = "Content-Type";
 
-	private static final ThreadLock LOCK = new ThreadLock();
+	/**
+	 * Maximum number of the body bytes written to the log
+	 */
+	protected static final long MAX_LOGGED_BODY_SIZE = 32 * 1024;
+
+	private static final TokenRefresher TOKEN_REFRESHER = new TokenRefresher();
+	private static final Map<Class<?>, Boolean> STRING_RESULT_OVERRIDES = Collections.synchronizedMap(new WeakHashMap<Class<?>, Boolean>());
+	private static final Map<Class<?>, Boolean> HTTP_CLIENT_OVERRIDES = Collections.synchronizedMap(new WeakHashMap<Class<?>, Boolean>());
+	private static final Map<Class<?>, Boolean> CHECK_ACCESS_TOKEN_OVERRIDES = Collections.synchronizedMap(new WeakHashMap<Class<?>, Boolean>());
+	private static final Map<Class<?>, Boolean> CREATE_REQUEST_TASK_OVERRIDES = Collections.synchronizedMap(new WeakHashMap<Class<?>, Boolean>());
+	private static final Map<Class<?>, Boolean> EXECUTE_REQUEST_OVERRIDES = Collections.synchronizedMap(new WeakHashMap<Class<?>, Boolean>());
 
 	protected OkHttpClient httpClient;
-	private RequestExecutor executor;
+	private OkHttpClient customHttpClient;
+	private RequestDispatcher dispatcher;
+	private RequestFuture<T> future;
+	private RequestFutureTask<T> execution;
+	private volatile Call call;
+	private Boolean asyncExecution;
+	@Nullable
+	private Executor callbackExecutor;
 	private final List<Parameter> bodyParameters = new ArrayList<>();
 	private final List<Parameter> urlParameters = new ArrayList<>();
+	private int fileParameters;
+	@Nullable
+	private ObjectCache objectCache;
 	private final Map<String, String> headerMap = new HashMap<>();
 	private final Timer timer = new Timer();
 	private MediaType mediaType = APPLICATION_URLENCODED;
 	private String[] urlSegments;
 	private String url;
 	private long minExecutionTime;
+	private int timeout = -1;
 	private boolean authorizedRequest;
 	private RestAuthorizationService userService;
+	@TokenPlacement
+	private int tokenPlacement;
+	private String tokenHeaderName;
+	private float tokenRefreshFraction;
+	private float tokenRefreshJitter;
+	@Nullable
+	private RetryPolicy retryPolicy;
+	@Nullable
+	private HedgePolicy hedgePolicy;
+	@Nullable
+	private CircuitBreaker circuitBreaker;
+	@Nullable
+	private RateLimiter rateLimiter;
 	private MockFactory mockFactory;
 	private boolean ignoreErrorCallback;
 	private boolean disableLogging;
@@ -104,11 +144,24 @@ public abstract class Request<T> {
 	}
 
 	protected void iniRequest(RestApiConfiguration configuration) {
-		httpClient = createHttpClient(configuration).build();
-		executor = new RequestExecutor(1, configuration.getTimeout());
+		if (isOverridden(getClass(), HTTP_CLIENT_OVERRIDES, "createHttpClient", RestApiConfiguration.class)) {
+			httpClient = createHttpClient(configuration).build();
+		} else {
+			httpClient = configuration.getHttpClient();
+		}
+		dispatcher = configuration.getDispatcher();
 		userService = configuration.getRestAuthorizationService();
+		tokenPlacement = configuration.getTokenPlacement();
+		tokenHeaderName = configuration.getTokenHeaderName();
+		tokenRefreshFraction = configuration.getTokenRefreshFraction();
+		tokenRefreshJitter = configuration.getTokenRefreshJitter();
 		mockFactory = configuration.getMockFactory();
 		mediaType = configuration.getMediaType();
+		objectCache = configuration.getObjectCache();
+		retryPolicy = configuration.getRetryPolicy();
+		hedgePolicy = configuration.getHedgePolicy();
+		circuitBreaker = configuration.getCircuitBreaker();
+		rateLimiter = configuration.getRateLimiter();
 	}
 
 	public static OkHttpClient.Builder enableTls12OnPreLollipop(OkHttpClient.Builder client) {
@@ -144,37 +197,43 @@ public abstract class Request<T> {
 		return client;
 	}
 
+	/**
+	 * Creates builder of the http client of this request. It is used only if the request class overrides this method,
+	 * otherwise all requests share the {@link RestApiConfiguration#getHttpClient() configured client}.
+	 * Default implementation derives builder from the shared client, so the connection pool is still shared
+	 *
+	 * @deprecated every instance of the request which overrides this method creates its own client.
+	 * Override {@link RestApiConfiguration#createHttpClient()} to configure the client shared by all requests
+	 */
+	@Deprecated
 	@NonNull
 	protected OkHttpClient.Builder createHttpClient(RestApiConfiguration configuration) {
-		int timeout = configuration.getTimeout();
-		OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder()
-				.connectionPool(new ConnectionPool(1, timeout, TimeUnit.MILLISECONDS))
-				.followSslRedirects(true)
-				.connectTimeout(timeout, TimeUnit.MILLISECONDS)
-				.readTimeout(timeout, TimeUnit.MILLISECONDS);
-		ConnectionSpec connectionSpec = configuration.getConnectionSpec();
-		if (connectionSpec != null) {
-			clientBuilder.connectionSpecs(Collections.singletonList(connectionSpec));
-		}
-
-		CertificatePinner certificatePinner = configuration.getCertificatePinner();
-		if (certificatePinner != null) {
-			clientBuilder.certificatePinner(certificatePinner);
-		}
-
-		final BasicAuthorization basicAuthorization = configuration.getBasicAuthorization();
-		if (basicAuthorization != null) {
-			clientBuilder.authenticator((route, response) -> {
-				okhttp3.Request.Builder requestBuilder = response.request()
-						.newBuilder()
-						.header("Authorization", basicAuthorization.getBasicAuthorization());
-				return requestBuilder.build();
-			});
+		return configuration.getHttpClient().newBuilder();
+	}
+
+	/**
+	 * Returns http client that should be used to execute this request. By default this is the client
+	 * shared by all requests (see {@link RestApiConfiguration#getHttpClient()}), derived client is created only if
+	 * this request overrides any of the client settings e.g. {@link #setTimeout(int)} or its body {@link #isOneShotBody() can't be sent again}
+	 */
+	@NonNull
+	protected OkHttpClient getHttpClient() {
+		boolean customTimeout = timeout >= 0 && timeout != getConfiguration().getTimeout();
+		// body that can be written only once mustn't be sent again when the connection fails
+		boolean retryOnConnectionFailure = httpClient.retryOnConnectionFailure() && !isOneShotBody();
+		if (!customTimeout && retryOnConnectionFailure == httpClient.retryOnConnectionFailure()) {
+			return httpClient;
 		}
-		if (configuration.isEnableTls12OnPreLollipop()) {
-			return enableTls12OnPreLollipop(clientBuilder);
+		if (customHttpClient == null || customHttpClient.retryOnConnectionFailure() != retryOnConnectionFailure) {
+			OkHttpClient.Builder builder = httpClient.newBuilder()
+					.retryOnConnectionFailure(retryOnConnectionFailure);
+			if (customTimeout) {
+				builder.connectTimeout(timeout, TimeUnit.MILLISECONDS)
+						.readTimeout(timeout, TimeUnit.MILLISECONDS);
+			}
+			customHttpClient = builder.build();
 		}
-		return clientBuilder;
+		return customHttpClient;
 	}
 
 	/**
@@ -188,62 +247,397 @@ public abstract class Request<T> {
 	 * {@inheritDoc}
 	 */
 	protected RequestFuture<T> execute(@Nullable RequestListener<T> listener) {
-		return execute(createRequestTask(), listener);
+		RequestFutureTask<T> task = new RequestFutureTask<>(ignoreErrorCallback ? null : getConfiguration().getErrorCallback(), listener);
+		task.setCallbackExecutor(getCallbackExecutor());
+		future = task;
+		dispatcher.execute(getHost(), task, () -> start(task));
+		return task;
+	}
+
+	/**
+	 * Executes this request, returned future is completed on the thread which finished the request
+	 */
+	@RequiresApi(api = Build.VERSION_CODES.N)
+	@NonNull
+	RequestCompletableFuture<T> executeAsync() {
+		RequestFutureTask<T> task = new RequestFutureTask<>(ignoreErrorCallback ? null : getConfiguration().getErrorCallback(), null);
+		RequestCompletableFuture<T> result = new RequestCompletableFuture<>(this::cancel);
+		task.whenDone(() -> result.completeFrom(task));
+		future = task;
+		dispatcher.execute(getHost(), task, () -> start(task));
+		return result;
 	}
 
 	@NonNull
 	protected RequestFuture<T> execute(Callable<T> task, @Nullable RequestListener<T> listener) {
-		RequestFuture<T> future = executor.submit(task, ignoreErrorCallback ? null : getConfiguration().getErrorCallback(), listener);
-		executor.shutdown();
+		future = dispatcher.submit(getHost(), task, ignoreErrorCallback ? null : getConfiguration().getErrorCallback(), listener, getCallbackExecutor());
 		return future;
 	}
 
+	/**
+	 * Executes this request for the caller that will wait for the result. If caller is one of the dispatcher threads
+	 * (e.g. request executed synchronously inside other request) then execution is started directly on the current thread,
+	 * so waiting thread can't block the dispatcher queue.
+	 */
+	@NonNull
+	RequestFuture<T> executeSync(@Nullable RequestListener<T> listener) {
+		if (!dispatcher.isWorkerThread()) {
+			return execute(listener);
+		}
+		RequestFutureTask<T> task = new RequestFutureTask<>(ignoreErrorCallback ? null : getConfiguration().getErrorCallback(), listener);
+		task.setCallbackExecutor(getCallbackExecutor());
+		future = task;
+		start(task);
+		return task;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
 	public void cancel() {
-		executor.shutdownNow();
+		if (future != null) {
+			future.cancel(true);
+		}
+		if (execution != null) {
+			execution.cancel(true);
+		}
+		Call call = this.call;
+		if (call != null) {
+			call.cancel();
+		}
+	}
+
+	/**
+	 * Returns host used to limit number of the requests executed at the same time to one host
+	 *
+	 * @see RestApiConfiguration#setMaxRequestsPerHost(int)
+	 */
+	@Nullable
+	protected String getHost() {
+		if (!TextUtils.isEmpty(url)) {
+			HttpUrl httpUrl = HttpUrl.parse(url);
+			return httpUrl == null ? null : httpUrl.host();
+		}
+		return getConfiguration().getHost();
 	}
 
 	/**
 	 * Creates new instance of the task that have to be executed
 	 *
 	 * @return callable instance of the request task
+	 * @deprecated Requests are started directly by the dispatcher, so they can release the thread while the call is in progress.
+	 * Requests which override this method are still executed by the returned task, but it blocks the dispatcher thread for the whole execution
 	 */
+	@Deprecated
 	@NonNull
 	protected Callable<T> createRequestTask() {
-		return () -> {
-			timer.start();
-			T result = executeRequest();
-			double time = timer.getElapsedTime();
-			if (time < minExecutionTime) {
+		//noinspection deprecation
+		return this::executeRequest;
+	}
+
+	/**
+	 * This method invokes task to do by this request and return specified. Caller thread waits for the end of the execution.
+	 *
+	 * @return requested object
+	 * @deprecated Requests are started directly by the dispatcher, so they can release the thread while the call is in progress.
+	 * Requests which override this method are still executed by it, but it blocks the dispatcher thread for the whole execution
+	 */
+	@Deprecated
+	protected T executeRequest() throws RequestException, IOException {
+		RequestFutureTask<T> task = new RequestFutureTask<>();
+		startExecution(task);
+		return task.get();
+	}
+
+	/**
+	 * Starts execution of this request on the current thread. Network call is executed on this thread too, unless
+	 * {@link #isAsyncExecution() asynchronous execution} is enabled. Result will be delivered to the {@code task}.
+	 */
+	void start(@NonNull RequestFutureTask<T> task) {
+		if (task.isDone()) {
+			return;
+		}
+		if (isOverridden(getClass(), CREATE_REQUEST_TASK_OVERRIDES, "createRequestTask") || isOverridden(getClass(), EXECUTE_REQUEST_OVERRIDES, "executeRequest")) {
+			execution = task;
+			task.start();
+			try {
+				//noinspection deprecation
+				task.complete(createRequestTask().call());
+			} catch (Throwable e) {
+				task.fail(e);
+			}
+			return;
+		}
+		startExecution(task);
+	}
+
+	private void startExecution(@NonNull RequestFutureTask<T> task) {
+		execution = task;
+		task.start();
+		timer.start();
+		try {
+			checkInitialRequirements(Request.this);
+			T mock = mock();
+			if (mock != null) {
+				if (!disableLogging) {
+					getLogger().debug(requestCodeLine.toString(), "Mocked response");
+				}
+				finish(task, mock);
+				return;
+			}
+			if (isAsyncExecution() && isTokenRefreshNeeded()) {
+				// request is continued when the token is refreshed, so it doesn't block the dispatcher thread meanwhile
+				TOKEN_REFRESHER.ensureTokenValid(userService, canContinue -> resume(task, canContinue));
+				return;
+			}
+			checkAccessToken();
+			proceed(task);
+		} catch (Throwable e) {
+			task.fail(e);
+		}
+	}
+
+	/**
+	 * Returns true if the token of this request has to be refreshed before the execution and the refresh can be awaited
+	 * without blocking the thread (i.e. {@link #checkAccessToken()} is not overridden)
+	 */
+	private boolean isTokenRefreshNeeded() {
+		return needAuthorization() && userService != null && userService.isLogged() && !userService.isTokenValid()
+				&& !isOverridden(getClass(), CHECK_ACCESS_TOKEN_OVERRIDES, "checkAccessToken");
+	}
+
+	/**
+	 * Continues execution of the request which waited for the token refresh
+	 *
+	 * @param canContinue false if token could not be refreshed and request should be cancelled
+	 */
+	private void resume(@NonNull RequestFutureTask<T> task, boolean canContinue) {
+		try {
+			dispatcher.execute(() -> {
+				if (task.isDone()) {
+					return;
+				}
+				if (!canContinue) {
+					cancel();
+					return;
+				}
 				try {
-					Thread.sleep((long) (minExecutionTime - time));
-				} catch (InterruptedException ignored) {
+					TOKEN_REFRESHER.scheduleRefresh(userService, dispatcher, tokenRefreshFraction, tokenRefreshJitter);
+					proceed(task);
+				} catch (Throwable e) {
+					task.fail(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			task.fail(new RequestException(e));
+		}
+	}
+
+	/**
+	 * Executes request which has valid access token (if needed)
+	 */
+	private void proceed(@NonNull RequestFutureTask<T> task) throws IOException, RequestException {
+		if (task.isCancelled()) {
+			return;
+		}
+		HttpUrl url = prepareUrl();
+		String cacheKey = getObjectCacheKey(url);
+		if (cacheKey != null) {
+			@SuppressWarnings("unchecked")
+			T cached = (T) objectCache.get(cacheKey);
+			if (cached != null) {
+				if (!disableLogging) {
+					getLogger().debug(requestCodeLine.toString(), "Cached response of " + getClassName() + ":" + requestLog.toString());
 				}
+				finish(task, cached);
+				return;
 			}
+		}
+		call(task, url, cacheKey);
+	}
+
+	/**
+	 * Executes http call or joins identical request which is already in flight
+	 */
+	private void call(@NonNull RequestFutureTask<T> task, @NonNull HttpUrl url, @Nullable String cacheKey) throws IOException, RequestException {
+		String coalescingKey = getCoalescingKey(url);
+		if (coalescingKey != null && !dispatcher.coalesce(coalescingKey, task, () -> retryCall(task, url, cacheKey))) {
 			if (!disableLogging) {
-				getLogger().debug(requestCodeLine.toString(), String.format(Locale.getDefault(), "Execution of " + getClassName() + " took: %.3fms", timer.getElapsedTime()));
+				getLogger().debug(requestCodeLine.toString(), "Waiting for the identical request in flight " + getClassName() + ":" + requestLog.toString());
 			}
-			return result;
-		};
+			return;
+		}
+		send(task, url, cacheKey, 0);
 	}
 
 	/**
-	 * This method invokes task to do by this request and return specified.
+	 * Executes http call, failed call is retried according to the {@link #getRetryPolicy() retry policy}
 	 *
-	 * @return requested object
+	 * @param retries number of the retries made so far
 	 */
-	protected T executeRequest() throws RequestException, IOException {
-		checkInitialRequirements(Request.this);
-		T mock = mock();
-		if (mock != null) {
-			if (!disableLogging) {
-				getLogger().debug(requestCodeLine.toString(), "Mocked response");
+	private void send(@NonNull RequestFutureTask<T> task, @NonNull HttpUrl url, @Nullable String cacheKey, int retries) throws IOException, RequestException {
+		if (rateLimiter != null) {
+			long delay = rateLimiter.reserve(url);
+			if (delay < 0) {
+				throw tooManyRequests(url);
+			}
+			if (delay > 0) {
+				sendLater(task, url, cacheKey, retries, delay, true);
+				return;
+			}
+		}
+		sendReserved(task, url, cacheKey, retries);
+	}
+
+	/**
+	 * Executes http call which already has the {@link RateLimiter rate limiter} token, call is delayed if calls to the host were paused meanwhile
+	 */
+	private void sendReserved(@NonNull RequestFutureTask<T> task, @NonNull HttpUrl url, @Nullable String cacheKey, int retries) throws IOException, RequestException {
+		if (rateLimiter != null) {
+			long pause = rateLimiter.getPause(url);
+			if (pause > rateLimiter.getMaxWait()) {
+				throw tooManyRequests(url);
+			}
+			if (pause > 0) {
+				sendLater(task, url, cacheKey, retries, pause, true);
+				return;
+			}
+		}
+		if (circuitBreaker != null) {
+			String circuitKey = circuitBreaker.getKey(url);
+			if (!circuitBreaker.tryAcquire(circuitKey)) {
+				throw new RequestException(RequestException.CIRCUIT_OPEN, "Circuit open", "Requests to " + circuitKey + " are stopped by the circuit breaker", RequestException.UNKNOWN, new HashMap<>());
+			}
+		}
+		Call call = newCall(url);
+		if (hedgePolicy != null && isSafeMethod(call.request().method())) {
+			enqueueHedged(task, url, call, cacheKey, retries);
+			return;
+		}
+		if (isAsyncExecution()) {
+			enqueue(task, url, call, cacheKey, retries);
+			return;
+		}
+		Response response;
+		try {
+			response = call.execute();
+		} catch (IOException e) {
+			if (afterCall(task, url, call, null, cacheKey, retries)) {
+				return;
+			}
+			throw e;
+		}
+		try {
+			if (!afterCall(task, url, call, response, cacheKey, retries)) {
+				finish(task, cacheResult(cacheKey, readResponse(response)));
+			}
+		} finally {
+			response.close();
+		}
+	}
+
+	private void retryCall(@NonNull RequestFutureTask<T> task, @NonNull HttpUrl url, @Nullable String cacheKey) {
+		if (task.isDone()) {
+			return;
+		}
+		try {
+			call(task, url, cacheKey);
+		} catch (Throwable e) {
+			task.fail(e);
+		}
+	}
+
+	/**
+	 * Records result of the call in the {@link RateLimiter}, {@link CircuitBreaker} and the dispatcher's concurrency limit, schedules next call on the dispatcher if the call should be retried
+	 *
+	 * @param response response of the call or null if connection failed
+	 * @return true if call will be retried
+	 */
+	private boolean afterCall(@NonNull RequestFutureTask<T> task, @NonNull HttpUrl url, @NonNull Call call, @Nullable Response response, @Nullable String cacheKey, int retries) {
+		if (rateLimiter != null && response != null) {
+			rateLimiter.onResponse(url, response);
+		}
+		if (response != null) {
+			int code = response.code();
+			dispatcher.onCallFinished(getHost(), response.receivedResponseAtMillis() - response.sentRequestAtMillis(), code == 429 || code >= 500);
+		} else if (!call.isCanceled()) {
+			dispatcher.onCallFinished(getHost(), 0, true);
+		}
+		if (circuitBreaker != null) {
+			String circuitKey = circuitBreaker.getKey(url);
+			if (response == null && call.isCanceled()) {
+				circuitBreaker.onCancelled(circuitKey);
+			} else if (response == null) {
+				circuitBreaker.onResult(circuitKey, true, 0);
+			} else {
+				circuitBreaker.onResult(circuitKey, response.code() >= 500, response.receivedResponseAtMillis() - response.sentRequestAtMillis());
 			}
-			return mock;
 		}
-		checkAccessToken();
+		if (retryPolicy == null || task.isDone() || call.isCanceled() || isOneShotBody()) {
+			return false;
+		}
+		long delay = retryPolicy.getRetryDelay(retries, isIdempotent(), response);
+		if (delay < 0) {
+			return false;
+		}
+		if (!disableLogging) {
+			String reason = response == null ? "connection failed" : "response code " + response.code();
+			getLogger().debug(requestCodeLine.toString(), "Retry " + (retries + 1) + " of " + getClassName() + " in " + delay + "ms (" + reason + ")");
+		}
+		sendLater(task, url, cacheKey, retries + 1, delay, false);
+		return true;
+	}
+
+	/**
+	 * Executes http call on the worker thread after the delay, no thread is blocked while waiting
+	 *
+	 * @param reserved true if the {@link RateLimiter rate limiter} token was already taken
+	 */
+	private void sendLater(@NonNull RequestFutureTask<T> task, @NonNull HttpUrl url, @Nullable String cacheKey, int retries, long delay, boolean reserved) {
+		dispatcher.schedule(() -> {
+			try {
+				dispatcher.execute(() -> {
+					if (task.isDone()) {
+						return;
+					}
+					try {
+						if (reserved) {
+							sendReserved(task, url, cacheKey, retries);
+						} else {
+							send(task, url, cacheKey, retries);
+						}
+					} catch (Throwable e) {
+						task.fail(e);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				// exception thrown by the scheduled action would be swallowed by its future
+				task.fail(new RequestException(e));
+			}
+		}, delay);
+	}
+
+	@NonNull
+	private static RequestException tooManyRequests(@NonNull HttpUrl url) {
+		return new RequestException(RequestException.RATE_LIMITED, "Rate limited", "Calls to " + url.host() + " are limited by the rate limiter", RequestException.UNKNOWN, new HashMap<>());
+	}
+
+	/**
+	 * Returns key which identifies identical requests or null if this request shouldn't be coalesced with other requests.
+	 * Concurrent requests with the same key share one http call and its result
+	 *
+	 * @see RestApiConfiguration#setRequestCoalescing(boolean)
+	 */
+	@Nullable
+	protected String getCoalescingKey(@NonNull HttpUrl url) {
+		return null;
+	}
+
+	/**
+	 * Prepares request and returns its url
+	 */
+	@NonNull
+	private HttpUrl prepareUrl() {
 		prepareRequest();
 		HttpUrl url = getUrl();
 		if (!disableLogging) {
@@ -253,16 +647,388 @@ public abstract class Request<T> {
 			requestLog.setLength(0);
 			requestLog.append("\n").append(url);
 		}
-		Call request = createRequest(url);
+		return url;
+	}
+
+	/**
+	 * Creates http call
+	 */
+	@NonNull
+	private Call newCall(@NonNull HttpUrl url) throws IOException {
+		Call call = createRequest(url);
+		this.call = call;
 		if (!disableLogging) {
 			getLogger().debug(requestCodeLine.toString(), "Start execution " + getClassName() + ":" + requestLog.toString());
 		}
-		Response response = request.execute();
-		T result = readResponse(response);
-		response.close();
+		return call;
+	}
+
+	/**
+	 * Enqueues http call, no thread waits for the response. Response is read on the dispatcher's computation thread
+	 */
+	private void enqueue(@NonNull RequestFutureTask<T> task, @NonNull HttpUrl url, @NonNull Call call, @Nullable String cacheKey, int retries) {
+		call.enqueue(new Callback() {
+			@Override
+			public void onFailure(@NonNull Call call, @NonNull IOException e) {
+				if (!afterCall(task, url, call, null, cacheKey, retries)) {
+					task.fail(e);
+				}
+			}
+
+			@Override
+			public void onResponse(@NonNull Call call, @NonNull Response response) {
+				dispatcher.executeComputation(() -> {
+					try {
+						if (!afterCall(task, url, call, response, cacheKey, retries)) {
+							finish(task, cacheResult(cacheKey, readResponse(response)));
+						}
+					} catch (Throwable e) {
+						task.fail(e);
+					} finally {
+						response.close();
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Enqueues http call and sends identical call if there is no response after the {@link HedgePolicy hedge delay}.
+	 * First successful response is used and the other call is cancelled
+	 */
+	private void enqueueHedged(@NonNull RequestFutureTask<T> task, @NonNull HttpUrl url, @NonNull Call call, @Nullable String cacheKey, int retries) {
+		HedgePolicy policy = hedgePolicy;
+		String endpoint = call.request().method() + " " + url.host() + url.encodedPath();
+		HedgedCall hedgedCall = new HedgedCall(task, url, cacheKey, retries, policy, endpoint);
+		task.whenDone(hedgedCall::cancel);
+		hedgedCall.enqueue(call);
+		long delay = policy.getHedgeDelay(endpoint);
+		if (delay >= 0) {
+			dispatcher.schedule(() -> {
+				if (hedgedCall.isPending() && policy.acquireHedge() && acquireHedgeCall(url)) {
+					if (!disableLogging) {
+						getLogger().debug(requestCodeLine.toString(), "Hedge of " + getClassName() + " after " + delay + "ms");
+					}
+					hedgedCall.enqueue(call.clone());
+				}
+			}, delay);
+		}
+	}
+
+	/**
+	 * Takes {@link RateLimiter rate limiter} token and {@link CircuitBreaker circuit breaker} permission for the hedge.
+	 * Hedge is not sent if it would have to wait or calls to the host are paused or stopped
+	 *
+	 * @return true if hedge can be sent immediately
+	 */
+	private boolean acquireHedgeCall(@NonNull HttpUrl url) {
+		String circuitKey = null;
+		if (circuitBreaker != null) {
+			circuitKey = circuitBreaker.getKey(url);
+			if (!circuitBreaker.tryAcquire(circuitKey)) {
+				return false;
+			}
+		}
+		if (rateLimiter != null && !rateLimiter.tryReserve(url)) {
+			if (circuitKey != null) {
+				circuitBreaker.onCancelled(circuitKey);
+			}
+			return false;
+		}
+		return true;
+	}
+
+	private static boolean isSafeMethod(@NonNull String method) {
+		return "GET".equals(method) || "HEAD".equals(method);
+	}
+
+	/**
+	 * Http call and its hedges, result of the first successful call (or the last failed if all of them failed) is delivered to the task
+	 */
+	private class HedgedCall {
+		private final RequestFutureTask<T> task;
+		private final HttpUrl url;
+		@Nullable
+		private final String cacheKey;
+		private final int retries;
+		private final HedgePolicy policy;
+		private final String endpoint;
+		private final List<Call> calls = new ArrayList<>(2);
+		private int pending;
+		private boolean done;
+
+		HedgedCall(@NonNull RequestFutureTask<T> task, @NonNull HttpUrl url, @Nullable String cacheKey, int retries, @NonNull HedgePolicy policy, @NonNull String endpoint) {
+			this.task = task;
+			this.url = url;
+			this.cacheKey = cacheKey;
+			this.retries = retries;
+			this.policy = policy;
+			this.endpoint = endpoint;
+		}
+
+		synchronized boolean isPending() {
+			return !done && !task.isDone();
+		}
+
+		void enqueue(@NonNull Call call) {
+			synchronized (this) {
+				if (done) {
+					return;
+				}
+				calls.add(call);
+				pending++;
+			}
+			long start = System.nanoTime();
+			call.enqueue(new Callback() {
+				@Override
+				public void onFailure(@NonNull Call call, @NonNull IOException e) {
+					if (!complete(call, false)) {
+						release();
+						return;
+					}
+					if (!afterCall(task, url, call, null, cacheKey, retries)) {
+						task.fail(e);
+					}
+				}
+
+				@Override
+				public void onResponse(@NonNull Call call, @NonNull Response response) {
+					policy.record(endpoint, (System.nanoTime() - start) / 1000000);
+					if (!complete(call, isSuccess(response))) {
+						response.close();
+						release();
+						return;
+					}
+					dispatcher.executeComputation(() -> {
+						try {
+							if (!afterCall(task, url, call, response, cacheKey, retries)) {
+								finish(task, cacheResult(cacheKey, readResponse(response)));
+							}
+						} catch (Throwable e) {
+							task.fail(e);
+						} finally {
+							response.close();
+						}
+					});
+				}
+			});
+		}
+
+		/**
+		 * Marks call as completed
+		 *
+		 * @return true if result of this call should be delivered to the task
+		 */
+		private synchronized boolean complete(@NonNull Call call, boolean success) {
+			pending--;
+			if (done || (!success && pending > 0)) {
+				// other call is still in flight
+				return false;
+			}
+			done = true;
+			for (Call other : calls) {
+				if (other != call) {
+					other.cancel();
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Releases {@link CircuitBreaker circuit breaker} permission of the call whose result is not used
+		 */
+		private void release() {
+			if (circuitBreaker != null) {
+				circuitBreaker.onCancelled(circuitBreaker.getKey(url));
+			}
+		}
+
+		synchronized void cancel() {
+			done = true;
+			for (Call call : calls) {
+				call.cancel();
+			}
+		}
+	}
+
+	/**
+	 * Returns key of the result in the {@link ObjectCache} or null if the result shouldn't be cached
+	 */
+	@Nullable
+	private String getObjectCacheKey(@NonNull HttpUrl url) {
+		if (objectCache == null || objectCache.getTimeToLive(getClass()) <= 0) {
+			return null;
+		}
+		String cacheKey = getCacheKey(url);
+		if (cacheKey != null && tokenPlacement != TokenPlacement.QUERY_PARAMETER) {
+			String accessToken = getAccessToken();
+			if (accessToken != null) {
+				// url is the same for all users
+				cacheKey += "\n" + accessToken;
+			}
+		}
+		return cacheKey;
+	}
+
+	/**
+	 * Returns key of the result in the {@link ObjectCache}, null if the result of this request cannot be cached.
+	 * Override this method if result depends on something more than url e.g. add id of the current user to the key.
+	 * Cached result is shared by all requests with the same key, return null if the result of this request is modified after delivery
+	 *
+	 * @see RestApiConfiguration#setObjectCache(ObjectCache)
+	 */
+	@Nullable
+	protected String getCacheKey(@NonNull HttpUrl url) {
+		return null;
+	}
+
+	private T cacheResult(@Nullable String cacheKey, T result) {
+		if (cacheKey != null && result != null) {
+			objectCache.put(cacheKey, result, objectCache.getTimeToLive(getClass()));
+		}
 		return result;
 	}
 
+	/**
+	 * Completes execution with the result, if execution took less than {@link #setMinExecutionTime(long) minimal execution time}
+	 * then result will be delivered after remaining time
+	 */
+	private void finish(@NonNull RequestFutureTask<T> task, T result) {
+		long remainingTime = (long) (minExecutionTime - timer.getElapsedTime());
+		if (remainingTime > 0) {
+			dispatcher.schedule(() -> complete(task, result), remainingTime);
+		} else {
+			complete(task, result);
+		}
+	}
+
+	private void complete(@NonNull RequestFutureTask<T> task, T result) {
+		if (!disableLogging) {
+			getLogger().debug(requestCodeLine.toString(), String.format(Locale.getDefault(), "Execution of " + getClassName() + " took: %.3fms", timer.getElapsedTime()));
+		}
+		task.complete(result);
+	}
+
+	/**
+	 * Returns policy of the retries of the failed http calls or null if calls are not retried
+	 *
+	 * @see RestApiConfiguration#setRetryPolicy(RetryPolicy)
+	 */
+	@Nullable
+	protected RetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+
+	/**
+	 * Sets policy of the retries of the failed http calls, null disables retries of this request.
+	 * By default policy from the {@link RestApiConfiguration#getRetryPolicy()} is used
+	 */
+	protected void setRetryPolicy(@Nullable RetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+	}
+
+	/**
+	 * Returns policy of the hedged calls or null if calls are not hedged. Only get and head calls are hedged
+	 *
+	 * @see RestApiConfiguration#setHedgePolicy(HedgePolicy)
+	 */
+	@Nullable
+	protected HedgePolicy getHedgePolicy() {
+		return hedgePolicy;
+	}
+
+	/**
+	 * Sets policy of the hedged calls, null disables hedging of this request.
+	 * By default policy from the {@link RestApiConfiguration#getHedgePolicy()} is used
+	 */
+	protected void setHedgePolicy(@Nullable HedgePolicy hedgePolicy) {
+		this.hedgePolicy = hedgePolicy;
+	}
+
+	/**
+	 * Returns circuit breaker which stops calls to the failing hosts or null if it's not used
+	 *
+	 * @see RestApiConfiguration#setCircuitBreaker(CircuitBreaker)
+	 */
+	@Nullable
+	protected CircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	/**
+	 * Sets circuit breaker which stops calls to the failing hosts, null disables it for this request.
+	 * By default circuit breaker from the {@link RestApiConfiguration#getCircuitBreaker()} is used
+	 */
+	protected void setCircuitBreaker(@Nullable CircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	/**
+	 * Returns rate limiter of the http calls or null if calls are not limited
+	 *
+	 * @see RestApiConfiguration#setRateLimiter(RateLimiter)
+	 */
+	@Nullable
+	protected RateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+
+	/**
+	 * Sets rate limiter of the http calls, null disables limits for this request.
+	 * By default rate limiter from the {@link RestApiConfiguration#getRateLimiter()} is used
+	 */
+	protected void setRateLimiter(@Nullable RateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
+	/**
+	 * Returns true if executing this request more than once has the same effect as executing it once.
+	 * Only idempotent requests are retried by default
+	 *
+	 * @see RetryPolicy#setRetryNonIdempotent(boolean)
+	 */
+	protected boolean isIdempotent() {
+		return false;
+	}
+
+	/**
+	 * Returns true if http call of this request should be enqueued instead of blocking the dispatcher thread until response is received
+	 *
+	 * @see #setAsyncExecution(boolean)
+	 * @see RestApiConfiguration#setAsyncExecution(boolean)
+	 */
+	protected boolean isAsyncExecution() {
+		return asyncExecution != null ? asyncExecution : getConfiguration().isAsyncExecution();
+	}
+
+	/**
+	 * Set true if http call of this request should be enqueued instead of blocking the dispatcher thread until response is received.
+	 * By default value from {@link RestApiConfiguration#isAsyncExecution()} is used
+	 */
+	protected void setAsyncExecution(boolean asyncExecution) {
+		this.asyncExecution = asyncExecution;
+	}
+
+	/**
+	 * Returns executor on which listener callbacks of this request are invoked
+	 *
+	 * @see #setCallbackExecutor(Executor)
+	 * @see RestApiConfiguration#setCallbackExecutor(Executor)
+	 */
+	@NonNull
+	protected Executor getCallbackExecutor() {
+		return callbackExecutor != null ? callbackExecutor : getConfiguration().getCallbackExecutor();
+	}
+
+	/**
+	 * Sets executor on which listener callbacks of this request are invoked.
+	 * By default value from {@link RestApiConfiguration#getCallbackExecutor()} is used
+	 *
+	 * @see CallbackExecutors
+	 */
+	protected void setCallbackExecutor(@NonNull Executor callbackExecutor) {
+		this.callbackExecutor = callbackExecutor;
+	}
 
 	@NonNull
 	protected String getClassName() {
@@ -303,6 +1069,8 @@ public abstract class Request<T> {
 	/**
 	 * This method will be executed only if {@link #needAuthorization()} method returns true.
 	 * Method checks if user is logged in and access token is valid (if not then try to refresh it).
+	 * Only one refresh is executed at the same time, other requests wait for its result.
+	 * If this method is not overridden then requests with {@link #isAsyncExecution() asynchronous execution} don't block the thread while waiting.
 	 * If Refresh token failed then user will be automatically logged out.
 	 */
 	@WorkerThread
@@ -321,22 +1089,11 @@ public abstract class Request<T> {
 			}
 		}
 
-		LOCK.waitIfLocked();
-		if (userService.isTokenValid()) {
+		if (!TOKEN_REFRESHER.ensureTokenValid(userService)) {
+			cancel();
 			return;
 		}
-		LOCK.lock();
-		try {
-			userService.refreshToken();
-		} catch (Exception e) {
-			if (!userService.onRefreshTokenFailed(new RefreshTokenException("Problem during obtaining refresh token", e))) {
-				cancel();
-				//noinspection UnnecessaryReturnStatement
-				return;
-			}
-		} finally {
-			LOCK.unlock();
-		}
+		TOKEN_REFRESHER.scheduleRefresh(userService, dispatcher, tokenRefreshFraction, tokenRefreshJitter);
 	}
 
 	protected void ignoreErrorCallback() {
@@ -406,27 +1163,80 @@ public abstract class Request<T> {
 		}
 		int status = response.code();
 		ResponseBody body = response.body();
-		String content = null;
-		if (body != null) {
-			content = body.string();
-		}
 		if (!disableLogging) {
+			String content = isResponseBodyLogged() ? peekBody(response) : "(body not logged)";
 			getLogger().verbose(requestCodeLine.toString(), "Response from " + getClassName() + " (" + requestUrl + "):\n" + content);
 		}
 		if (isSuccess(response)) {
-			T result = readResult(content);
+			T result = body == null ? readResult((String) null) : readResult(body);
 			readHeaders(response.headers(), result);
 			return result;
 		} else {
-			throw getErrorDeserializer().read(status, content);
+			throw body == null ? getErrorDeserializer().read(status, (String) null) : getErrorDeserializer().read(status, body);
 		}
 	}
 
+	/**
+	 * Returns true if the beginning of the response body is written to the log. Body is buffered for the log, so requests
+	 * which read the body as a stream should return false
+	 */
+	protected boolean isResponseBodyLogged() {
+		return true;
+	}
+
+	/**
+	 * Returns beginning of the response body (up to {@link #MAX_LOGGED_BODY_SIZE} bytes) without consuming it
+	 */
+	@Nullable
+	private String peekBody(@NonNull Response response) throws IOException {
+		if (response.body() == null) {
+			return null;
+		}
+		ResponseBody peek = response.peekBody(MAX_LOGGED_BODY_SIZE);
+		String content = peek.string();
+		if (peek.contentLength() >= MAX_LOGGED_BODY_SIZE && response.body().contentLength() != MAX_LOGGED_BODY_SIZE) {
+			content += "\n(...)";
+		}
+		return content;
+	}
+
 	protected T readResult(String content) throws IOException {
 		Class<? extends Request> aClass = getClass();
 		return getDeserializer().read(aClass, content);
 	}
 
+	/**
+	 * Reads result directly from the response body stream. If the request class overrides {@link #readResult(String)}
+	 * then whole body is read to the String and passed to that method, so the custom parsing is still used
+	 */
+	protected T readResult(@NonNull ResponseBody body) throws IOException {
+		if (isOverridden(getClass(), STRING_RESULT_OVERRIDES, "readResult", String.class)) {
+			return readResult(body.string());
+		}
+		return getDeserializer().read(getClass(), body);
+	}
+
+	/**
+	 * Returns true if the request class or one of its superclasses (other than this class) declares given method.
+	 * Result is stored in the {@code cache}
+	 */
+	private static boolean isOverridden(@NonNull Class<?> requestClass, @NonNull Map<Class<?>, Boolean> cache, @NonNull String name, @NonNull Class<?>... parameterTypes) {
+		Boolean overridden = cache.get(requestClass);
+		if (overridden == null) {
+			overridden = false;
+			for (Class<?> type = requestClass; type != null && type != Request.class; type = type.getSuperclass()) {
+				try {
+					type.getDeclaredMethod(name, parameterTypes);
+					overridden = true;
+					break;
+				} catch (NoSuchMethodException ignored) {
+				}
+			}
+			cache.put(requestClass, overridden);
+		}
+		return overridden;
+	}
+
 	protected void readHeaders(Headers headers, T result) {
 	}
 
@@ -446,21 +1256,16 @@ public abstract class Request<T> {
 		if (urlSegments == null && TextUtils.isEmpty(this.url)) {
 			throw new IllegalStateException("Set url in " + this.getClass().getSimpleName() + " prepareRequest method");
 		}
-		HttpUrl url;
+		HttpUrl.Builder builder;
 		if (!TextUtils.isEmpty(this.url)) {
-			if (needAuthorization() && userService != null && userService.getAuthorization() != null) {
-				String accessToken = ACCESS_TOKEN + "=" + userService.getAuthorization().getAccessToken();
-				if (!this.url.contains(accessToken)) {
-					int questionMarkPosition = this.url.indexOf('?');
-					char paramSeparator = questionMarkPosition >= 0 ? '&' : '?';
-					this.url += paramSeparator + accessToken;
-				}
+			HttpUrl url = HttpUrl.parse(this.url);
+			if (url == null) {
+				throw new IllegalArgumentException("Unexpected url: " + this.url);
 			}
-			url = HttpUrl.parse(this.url);
-
+			builder = url.newBuilder();
 		} else {
 			RestApiConfiguration configuration = getConfiguration();
-			HttpUrl.Builder builder = new HttpUrl.Builder();
+			builder = new HttpUrl.Builder();
 			builder.scheme(configuration.getScheme());
 			if (configuration.getPort() >= 0) {
 				builder.port(configuration.getPort());
@@ -478,13 +1283,26 @@ public abstract class Request<T> {
 			for (Parameter param : urlParameters) {
 				builder.addQueryParameter(param.getName(), String.valueOf(param.getValue()));
 			}
-
-			if (needAuthorization() && userService != null && userService.getAuthorization() != null) {
-				builder.addQueryParameter(ACCESS_TOKEN, userService.getAuthorization().getAccessToken());
+		}
+		if (tokenPlacement == TokenPlacement.QUERY_PARAMETER) {
+			String accessToken = getAccessToken();
+			if (accessToken != null) {
+				builder.setQueryParameter(ACCESS_TOKEN, accessToken);
 			}
-			url = builder.build();
 		}
-		return url;
+		return builder.build();
+	}
+
+	/**
+	 * Returns access token if this request needs authorization
+	 */
+	@Nullable
+	private String getAccessToken() {
+		if (!needAuthorization() || userService == null) {
+			return null;
+		}
+		Authorization authorization = userService.getAuthorization();
+		return authorization != null ? authorization.getAccessToken() : null;
 	}
 
 	/**
@@ -501,6 +1319,16 @@ public abstract class Request<T> {
 		this.minExecutionTime = millis;
 	}
 
+	/**
+	 * Set connect and read timeout of this request in milliseconds. By default timeout from the {@link RestApiConfiguration#getTimeout()} is used
+	 */
+	protected void setTimeout(int millis) {
+		if (this.timeout != millis) {
+			this.timeout = millis;
+			customHttpClient = null;
+		}
+	}
+
 	/**
 	 * Set api method url based on {@link RestApiConfiguration}
 	 *
@@ -529,14 +1357,60 @@ public abstract class Request<T> {
 	 * Adds parameter to request body
 	 */
 	protected void putParameter(@NonNull String name, @Nullable Object value) {
+		int size = bodyParameters.size();
 		getSerializer().serialize(bodyParameters, name, value);
+		countFileParameters(size);
 	}
 
 	/**
 	 * Adds parameter to request body
 	 */
 	protected void putParameter(@Nullable Object value) {
+		int size = bodyParameters.size();
 		getSerializer().serialize(bodyParameters, value);
+		countFileParameters(size);
+	}
+
+	/**
+	 * Adds file to request body, content type is guessed from the file extension
+	 */
+	protected void putFile(@NonNull String name, @NonNull File file) {
+		putFile(new FileParameter(name, file));
+	}
+
+	/**
+	 * Adds file to request body
+	 */
+	protected void putFile(@NonNull String name, @NonNull File file, @Nullable MediaType contentType) {
+		putFile(new FileParameter(name, file, contentType));
+	}
+
+	/**
+	 * Adds file with given content to request body
+	 */
+	protected void putFile(@NonNull String name, @NonNull String fileName, @NonNull ByteString content, @Nullable MediaType contentType) {
+		putFile(new FileParameter(name, fileName, content, contentType));
+	}
+
+	/**
+	 * Adds file with content read from the stream to request body. Stream will be closed after the request was sent,
+	 * so request with this file is never retried
+	 */
+	protected void putFile(@NonNull String name, @NonNull String fileName, @NonNull InputStream content, @Nullable MediaType contentType) {
+		putFile(new FileParameter(name, fileName, content, contentType));
+	}
+
+	private void putFile(@NonNull FileParameter parameter) {
+		bodyParameters.add(parameter);
+		fileParameters++;
+	}
+
+	private void countFileParameters(int from) {
+		for (int i = from; i < bodyParameters.size(); i++) {
+			if (bodyParameters.get(i).isFile()) {
+				fileParameters++;
+			}
+		}
 	}
 
 	protected void addHeader(@NonNull String name, @NonNull String value) {
@@ -546,6 +1420,16 @@ public abstract class Request<T> {
 	protected Map<String, String> getHeaders() {
 		Map<String, String> headers = new HashMap<>(headerMap);
 		headers.putAll(getConfiguration().getHeaders());
+		if (tokenPlacement != TokenPlacement.QUERY_PARAMETER) {
+			String accessToken = getAccessToken();
+			if (accessToken != null) {
+				if (tokenPlacement == TokenPlacement.BEARER_HEADER) {
+					headers.put(AUTHORIZATION_HEADER, "Bearer " + accessToken);
+				} else {
+					headers.put(tokenHeaderName, accessToken);
+				}
+			}
+		}
 		return headers;
 	}
 
@@ -558,6 +1442,9 @@ public abstract class Request<T> {
 			Parameter parameter = iterator.next();
 			if (key.equals(parameter.getName())) {
 				iterator.remove();
+				if (parameter.isFile()) {
+					fileParameters--;
+				}
 				return;
 			}
 		}
@@ -597,39 +1484,48 @@ public abstract class Request<T> {
 	}
 
 	/**
-	 * Checks if at least one of the parameters is a file
+	 * Returns true if the body contains content which can be written only once (see {@link FileParameter#isOneShot()}).
+	 * Such request is never retried
 	 */
-	protected boolean isMultipartRequest() {
+	protected boolean isOneShotBody() {
+		if (fileParameters == 0) {
+			return false;
+		}
 		for (Parameter parameter : bodyParameters) {
-			if (parameter.isFile()) {
+			if (parameter instanceof FileParameter && ((FileParameter) parameter).isOneShot()) {
 				return true;
 			}
 		}
 		return false;
 	}
 
+	/**
+	 * Checks if at least one of the parameters is a file
+	 */
+	protected boolean isMultipartRequest() {
+		return fileParameters > 0;
+	}
+
 	@NonNull
 	private RequestBody getMultipartBody() {
 		MultipartBody.Builder bodyBuilder = new MultipartBody.Builder();
 		bodyBuilder.setType(MULTIPART_FORM_DATA);
 
-		Iterator<Parameter> iterator = bodyParameters.iterator();
-		while (iterator.hasNext()) {
-			Parameter parameter = iterator.next();
+		for (Parameter parameter : bodyParameters) {
 			if (parameter.isFile()) {
-				String name = parameter.getName();
-				String path = parameter.getFilePath();
+				FileParameter file = parameter instanceof FileParameter ? (FileParameter) parameter : new FileParameter(parameter.getName(), new File(parameter.getFilePath()));
 				if (!disableLogging) {
-					requestLog.append("\n").append(name).append(": ").append(path);
+					requestLog.append("\n").append(file.getName()).append(": ").append(file.getFilePath());
 				}
-				File file = new File(path);
 				if (file.exists()) {
-					bodyBuilder.addFormDataPart(name, file.getName(), RequestBody.create(MediaType.parse("image/" + getFileExtension(file)), file));
+					bodyBuilder.addFormDataPart(file.getName(), file.getFileName(), file.createRequestBody());
 				}
-				iterator.remove();
 			}
 		}
 		for (Parameter parameter : bodyParameters) {
+			if (parameter.isFile()) {
+				continue;
+			}
 			String name = parameter.getName();
 			String value = String.valueOf(parameter.getValue());
 			if (!disableLogging) {
@@ -642,15 +1538,6 @@ public abstract class Request<T> {
 		return bodyBuilder.build();
 	}
 
-	private String getFileExtension(@NonNull File file) {
-		String fileName = file.getName();
-		int beginIndex = fileName.lastIndexOf(".") + 1;
-		if (beginIndex == 0) {
-			return "*";
-		}
-		return fileName.substring(beginIndex);
-	}
-
 	@NonNull
 	private RequestBody getFormBody() {
 		FormBody.Builder bodyBuilder = new FormBody.Builder();
@@ -669,11 +1556,15 @@ public abstract class Request<T> {
 
 	private RequestBody getJsonBody() {
 		if (getSerializer() instanceof JsonSerializer) {
-			String body = ((JsonSerializer) getSerializer()).toJsonString(bodyParameters);
+			JsonRequestBody body = new JsonRequestBody((JsonSerializer) getSerializer(), bodyParameters);
 			if (!disableLogging) {
-				requestLog.append("\n").append(body);
+				try {
+					requestLog.append("\n").append(body.preview(MAX_LOGGED_BODY_SIZE));
+				} catch (IOException e) {
+					throw new SerializationException(e);
+				}
 			}
-			return RequestBody.create(APPLICATION_JSON, body);
+			return body;
 		} else {
 			throw new IllegalStateException("Json media type requires JsonSerializer. Set JsonSerializer via RestApi.Config().setSerializer()");
 		}
@@ -0,0 +1,63 @@
+package software.rsquared.restapi;
+
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.RequiresApi;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+import software.rsquared.restapi.exceptions.RequestException;
+
+/**
+ * {@link CompletableFuture} completed with the result of the request execution. Cancelling this future cancels the
+ * request and its http call. Dependent stages are completed on the thread which finished the request, use the *Async
+ * methods with the executor (e.g. {@link CallbackExecutors#mainThread()}) to continue on the other thread.
+ * <p>
+ * <b>Note:</b> cancellation of the dependent stage (e.g. returned by the {@link #thenCompose(java.util.function.Function)})
+ * doesn't cancel this future.
+ *
+ * @author Rafal Zajfert
+ * @see RestApi#executeAsync(Request)
+ */
+@RequiresApi(api = Build.VERSION_CODES.N)
+class RequestCompletableFuture<T> extends CompletableFuture<T> {
+
+	@NonNull
+	private final Runnable onCancel;
+
+	/**
+	 * @param onCancel action invoked when this future is cancelled by the user
+	 */
+	RequestCompletableFuture(@NonNull Runnable onCancel) {
+		this.onCancel = onCancel;
+	}
+
+	/**
+	 * Completes this future with the result of the finished task
+	 */
+	void completeFrom(@NonNull RequestFutureTask<T> task) {
+		if (task.isCancelled()) {
+			super.cancel(false);
+			return;
+		}
+		try {
+			complete(task.get());
+		} catch (RequestException e) {
+			completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		// super.cancel returns true also if this future was cancelled before, so onCancel would be invoked more than once
+		if (completeExceptionally(new CancellationException())) {
+			onCancel.run();
+			return true;
+		}
+		return isCancelled();
+	}
+}
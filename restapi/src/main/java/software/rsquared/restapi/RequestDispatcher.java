@@ -0,0 +1,355 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import software.rsquared.restapi.exceptions.RequestException;
+import software.rsquared.restapi.listeners.ErrorCallback;
+import software.rsquared.restapi.listeners.RequestListener;
+
+/**
+ * Dispatcher shared by all requests. Tasks are executed on the bounded pool of the worker threads,
+ * number of tasks running at the same time for one host is limited and tasks above this limit wait in the per host queue.
+ * Limit can be {@link ConcurrencyLimit adaptive}, then it changes with the latency and errors of the calls to the host.
+ * <p>
+ * Identical requests can be {@link #coalesce(String, RequestFutureTask, Runnable) coalesced}, so only one of them is executed.
+ * <p>
+ * Dispatcher has also small pool of the threads for the response deserialization of the asynchronous requests and
+ * one thread for the delayed actions.
+ *
+ * @author Rafal Zajfert
+ * @see RestApiConfiguration#setMaxRequestThreads(int)
+ * @see RestApiConfiguration#setRequestQueueCapacity(int)
+ * @see RestApiConfiguration#setMaxRequestsPerHost(int)
+ */
+class RequestDispatcher {
+
+	private static final long THREAD_KEEP_ALIVE = 60 * 1000;
+
+	private static final ThreadLocal<RequestDispatcher> WORKER = new ThreadLocal<>();
+
+	private final RequestExecutor executor;
+	private final ThreadPoolExecutor computationExecutor;
+	private final ScheduledThreadPoolExecutor scheduler;
+	private final int maxRequestsPerHost;
+	private final boolean adaptiveConcurrency;
+	private final Map<String, ConcurrencyLimit> limitPerHost = new HashMap<>();
+	private final Map<String, Integer> runningPerHost = new HashMap<>();
+	private final Map<String, Deque<HostTask>> waitingPerHost = new HashMap<>();
+	private final Map<String, List<Follower>> inFlight = new HashMap<>();
+
+	RequestDispatcher(int maxThreads, int queueCapacity, int maxRequestsPerHost) {
+		this(maxThreads, queueCapacity, maxRequestsPerHost, false);
+	}
+
+	/**
+	 * @param adaptiveConcurrency true if limit of the requests to one host should adapt to the latency and errors, {@code maxRequestsPerHost} is then the upper bound of the limit
+	 */
+	RequestDispatcher(int maxThreads, int queueCapacity, int maxRequestsPerHost, boolean adaptiveConcurrency) {
+		this.maxRequestsPerHost = maxRequestsPerHost;
+		this.adaptiveConcurrency = adaptiveConcurrency;
+		BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>(queueCapacity);
+		executor = new RequestExecutor(maxThreads, maxThreads, THREAD_KEEP_ALIVE, TimeUnit.MILLISECONDS, queue, new WorkerThreadFactory("RestApi-", true));
+		executor.allowCoreThreadTimeOut(true);
+
+		int computationThreads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+		computationExecutor = new ThreadPoolExecutor(computationThreads, computationThreads, THREAD_KEEP_ALIVE, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), new WorkerThreadFactory("RestApi-computation-", false));
+		computationExecutor.allowCoreThreadTimeOut(true);
+
+		scheduler = new ScheduledThreadPoolExecutor(1, new WorkerThreadFactory("RestApi-scheduler-", false));
+		scheduler.setKeepAliveTime(THREAD_KEEP_ALIVE, TimeUnit.MILLISECONDS);
+		scheduler.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Submits request task for execution. On the end of execution {@code listener} will be called.
+	 *
+	 * @param host     host of the request, if null then host limit will not be applied
+	 * @param task     the task to submit
+	 * @param listener Listener for handling result of task execution
+	 * @return a Future representing pending completion of the task
+	 */
+	@NonNull
+	<T> RequestFutureTask<T> submit(@Nullable String host, @NonNull Callable<T> task, @Nullable ErrorCallback errorCallback, @Nullable RequestListener<T> listener) {
+		return submit(host, task, errorCallback, listener, CallbackExecutors.mainThread());
+	}
+
+	/**
+	 * Submits request task for execution. On the end of execution {@code listener} will be called on the {@code callbackExecutor}.
+	 *
+	 * @param host             host of the request, if null then host limit will not be applied
+	 * @param task             the task to submit
+	 * @param listener         Listener for handling result of task execution
+	 * @param callbackExecutor executor of the listener callbacks
+	 * @return a Future representing pending completion of the task
+	 */
+	@NonNull
+	<T> RequestFutureTask<T> submit(@Nullable String host, @NonNull Callable<T> task, @Nullable ErrorCallback errorCallback, @Nullable RequestListener<T> listener, @NonNull Executor callbackExecutor) {
+		RequestFutureTask<T> futureTask = new RequestFutureTask<>(task, errorCallback, listener);
+		futureTask.setCallbackExecutor(callbackExecutor);
+		execute(host, futureTask, futureTask);
+		return futureTask;
+	}
+
+	/**
+	 * Runs {@code start} on the worker thread or puts it to the host queue if limit of the running requests for this host was reached.
+	 * Host slot is released when {@code future} is done, so asynchronous executions are limited as long as they are in progress
+	 *
+	 * @param host   host of the request, if null then host limit will not be applied
+	 * @param future future completed by the execution
+	 * @param start  action that starts the execution
+	 */
+	void execute(@Nullable String host, @NonNull RequestFutureTask<?> future, @NonNull Runnable start) {
+		HostTask task = new HostTask(host, future, start);
+		if (host == null) {
+			executeNow(task);
+			return;
+		}
+		synchronized (this) {
+			Integer running = runningPerHost.get(host);
+			int count = running == null ? 0 : running;
+			if (count >= getLimit(host)) {
+				Deque<HostTask> waiting = waitingPerHost.get(host);
+				if (waiting == null) {
+					waiting = new ArrayDeque<>();
+					waitingPerHost.put(host, waiting);
+				}
+				waiting.add(task);
+				return;
+			}
+			runningPerHost.put(host, count + 1);
+		}
+		executeNow(task);
+	}
+
+	/**
+	 * Updates {@link ConcurrencyLimit adaptive limit} of the host with the result of the call
+	 *
+	 * @param latency duration of the call in milliseconds
+	 * @param dropped true if call failed because of the server overload
+	 */
+	void onCallFinished(@Nullable String host, long latency, boolean dropped) {
+		if (!adaptiveConcurrency || host == null) {
+			return;
+		}
+		List<HostTask> next = new ArrayList<>();
+		synchronized (this) {
+			Integer running = runningPerHost.get(host);
+			int count = running == null ? 0 : running;
+			getHostLimit(host).onSample(latency, dropped, count);
+			// limit could grow, start waiting tasks
+			Deque<HostTask> waiting = waitingPerHost.get(host);
+			while (waiting != null && !waiting.isEmpty() && count < getLimit(host)) {
+				next.add(waiting.poll());
+				count++;
+			}
+			if (waiting != null && waiting.isEmpty()) {
+				waitingPerHost.remove(host);
+			}
+			if (count > 0) {
+				runningPerHost.put(host, count);
+			}
+		}
+		for (HostTask task : next) {
+			executeNow(task);
+		}
+	}
+
+	/**
+	 * Returns current limit of the requests executed at the same time to the host
+	 */
+	synchronized int getLimit(@NonNull String host) {
+		return adaptiveConcurrency ? getHostLimit(host).getLimit() : maxRequestsPerHost;
+	}
+
+	@NonNull
+	private ConcurrencyLimit getHostLimit(@NonNull String host) {
+		ConcurrencyLimit limit = limitPerHost.get(host);
+		if (limit == null) {
+			limit = new ConcurrencyLimit((maxRequestsPerHost + 1) / 2, maxRequestsPerHost);
+			limitPerHost.put(host, limit);
+		}
+		return limit;
+	}
+
+	/**
+	 * Executes task on the worker thread. Host limit is not applied.
+	 */
+	void execute(@NonNull Runnable task) {
+		executor.execute(task);
+	}
+
+	/**
+	 * Executes cpu bound task e.g. response deserialization
+	 */
+	void executeComputation(@NonNull Runnable task) {
+		computationExecutor.execute(task);
+	}
+
+	/**
+	 * Runs action after given delay. Action is invoked on the scheduler thread so it should be short
+	 */
+	void schedule(@NonNull Runnable action, long delayMillis) {
+		scheduler.schedule(action, delayMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Registers execution of the request identified by the {@code key}. If identical request is already in flight then
+	 * {@code task} will be completed with its result and this method returns false, otherwise caller should execute the request.
+	 * If the request in flight is cancelled then {@code retry} of every waiting task is executed on the worker thread.
+	 */
+	boolean coalesce(@NonNull String key, @NonNull RequestFutureTask<?> task, @NonNull Runnable retry) {
+		synchronized (inFlight) {
+			List<Follower> followers = inFlight.get(key);
+			if (followers != null) {
+				followers.add(new Follower(task, retry));
+				return false;
+			}
+			inFlight.put(key, new ArrayList<>());
+		}
+		task.whenDone(() -> finishedFlight(key, task));
+		return true;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void finishedFlight(@NonNull String key, @NonNull RequestFutureTask<?> task) {
+		List<Follower> followers;
+		synchronized (inFlight) {
+			followers = inFlight.remove(key);
+		}
+		for (Follower follower : followers) {
+			if (task.isCancelled()) {
+				execute(follower.retry);
+			} else {
+				((RequestFutureTask<Object>) follower.task).completeFrom((RequestFutureTask<Object>) task);
+			}
+		}
+	}
+
+	/**
+	 * Returns true if current thread is the worker of this dispatcher
+	 */
+	boolean isWorkerThread() {
+		return WORKER.get() == this;
+	}
+
+	private void executeNow(@NonNull HostTask task) {
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			if (task.host != null) {
+				finished(task.host);
+			}
+			task.future.fail(new RequestException(e));
+		}
+	}
+
+	private void finished(@NonNull String host) {
+		HostTask next = null;
+		synchronized (this) {
+			Deque<HostTask> waiting = waitingPerHost.get(host);
+			int running = runningPerHost.get(host);
+			if (waiting != null && running <= getLimit(host)) {
+				next = waiting.poll();
+				if (waiting.isEmpty()) {
+					waitingPerHost.remove(host);
+				}
+			}
+			if (next == null) {
+				running--;
+				if (running > 0) {
+					runningPerHost.put(host, running);
+				} else {
+					runningPerHost.remove(host);
+				}
+			}
+		}
+		if (next != null) {
+			executeNow(next);
+		}
+	}
+
+	/**
+	 * Task that holds host slot until its future is done
+	 */
+	private class HostTask implements Runnable {
+		@Nullable
+		private final String host;
+		@NonNull
+		private final RequestFutureTask<?> future;
+		@NonNull
+		private final Runnable start;
+
+		HostTask(@Nullable String host, @NonNull RequestFutureTask<?> future, @NonNull Runnable start) {
+			this.host = host;
+			this.future = future;
+			this.start = start;
+		}
+
+		@Override
+		public void run() {
+			if (host != null) {
+				future.whenDone(() -> finished(host));
+			}
+			if (!future.isDone()) {
+				start.run();
+			}
+		}
+	}
+
+	/**
+	 * Task waiting for the result of the identical request
+	 */
+	private static class Follower {
+		@NonNull
+		private final RequestFutureTask<?> task;
+		@NonNull
+		private final Runnable retry;
+
+		Follower(@NonNull RequestFutureTask<?> task, @NonNull Runnable retry) {
+			this.task = task;
+			this.retry = retry;
+		}
+	}
+
+	private class WorkerThreadFactory implements ThreadFactory {
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+		private final String namePrefix;
+		private final boolean worker;
+
+		WorkerThreadFactory(String namePrefix, boolean worker) {
+			this.namePrefix = namePrefix;
+			this.worker = worker;
+		}
+
+		@Override
+		public Thread newThread(@NonNull Runnable runnable) {
+			Thread thread = new Thread(() -> {
+				if (worker) {
+					WORKER.set(RequestDispatcher.this);
+				}
+				runnable.run();
+			}, namePrefix + threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
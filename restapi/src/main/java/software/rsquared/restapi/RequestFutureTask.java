@@ -1,13 +1,15 @@
 package software.rsquared.restapi;
 
-import android.os.Handler;
-import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -26,11 +28,22 @@ import software.rsquared.restapi.listeners.RequestListener;
  */
 public class RequestFutureTask<T> extends FutureTask<T> implements RequestFuture<T> {
 
-	@Nullable
-	private static Handler handler;
+	private static final Callable<?> EXTERNAL_COMPLETION = () -> {
+		throw new IllegalStateException("This task is completed by the request execution and cannot be run");
+	};
+
 	private final ErrorCallback errorCallback;
 	@Nullable
 	private RequestListener<T> listener;
+	@NonNull
+	private Executor callbackExecutor = CallbackExecutors.mainThread();
+	private final Object callbackLock = new Object();
+	private boolean callbacksPosted;
+	private boolean started;
+	private boolean preExecuteDelivered;
+	private boolean resultDelivered;
+	private final List<Runnable> doneHooks = new ArrayList<>(1);
+	private boolean hooksInvoked;
 
 
 	@Deprecated
@@ -67,6 +80,25 @@ public class RequestFutureTask<T> extends FutureTask<T> implements RequestFuture
 		this.listener = listener;
 	}
 
+	/**
+	 * Creates a FutureTask without listener that will be completed by the request execution via {@link #complete(Object)} or {@link #fail(Throwable)}
+	 */
+	RequestFutureTask() {
+		this((ErrorCallback) null, null);
+	}
+
+	/**
+	 * Creates a FutureTask that will be completed by the request execution via {@link #complete(Object)} or {@link #fail(Throwable)}
+	 *
+	 * @param listener the listener that will be called when execution finished
+	 */
+	@SuppressWarnings("unchecked")
+	RequestFutureTask(@Nullable ErrorCallback errorCallback, @Nullable RequestListener<T> listener) {
+		super((Callable<T>) EXTERNAL_COMPLETION);
+		this.errorCallback = errorCallback;
+		this.listener = listener;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -101,10 +133,74 @@ public class RequestFutureTask<T> extends FutureTask<T> implements RequestFuture
 
 	@Override
 	public void run() {
+		start();
+		super.run();
+	}
+
+	/**
+	 * Notifies listener that execution of this task started
+	 */
+	void start() {
 		if (listener != null) {
-			getHandler().post(() -> listener.onPreExecute());
+			synchronized (callbackLock) {
+				started = true;
+			}
+			postCallbacks();
 		}
-		super.run();
+	}
+
+	/**
+	 * Sets executor of the listener callbacks
+	 *
+	 * @see RestApiConfiguration#setCallbackExecutor(Executor)
+	 */
+	void setCallbackExecutor(@NonNull Executor callbackExecutor) {
+		this.callbackExecutor = callbackExecutor;
+	}
+
+	/**
+	 * Completes this task with the result of the request execution
+	 */
+	void complete(T result) {
+		set(result);
+	}
+
+	/**
+	 * Completes this task with the cause of the request execution fail
+	 */
+	void fail(@NonNull Throwable e) {
+		setException(e);
+	}
+
+	/**
+	 * Completes this task with the result or the fail of the other task, which must be already done.
+	 * Result object is not copied, both tasks share the same instance
+	 */
+	void completeFrom(@NonNull RequestFutureTask<T> task) {
+		try {
+			complete(task.result());
+		} catch (ExecutionException e) {
+			fail(e.getCause());
+		} catch (InterruptedException | CancellationException e) {
+			fail(e);
+		}
+	}
+
+	private T result() throws ExecutionException, InterruptedException {
+		return super.get();
+	}
+
+	/**
+	 * Adds action that will be invoked when this task is done (or immediately if it's already done)
+	 */
+	void whenDone(@NonNull Runnable action) {
+		synchronized (doneHooks) {
+			if (!hooksInvoked) {
+				doneHooks.add(action);
+				return;
+			}
+		}
+		action.run();
 	}
 
 	/**
@@ -113,18 +209,16 @@ public class RequestFutureTask<T> extends FutureTask<T> implements RequestFuture
 	@Override
 	protected void done() {
 		if (listener != null) {
-			getHandler().post(() -> {
-				if (RequestFutureTask.this.isCancelled()) {
-					listener.onCanceled();
-				} else {
-					try {
-						listener.onSuccess(get());
-					} catch (RequestException e) {
-						listener.onFailed(e);
-					}
-				}
-				listener.onPostExecute();
-			});
+			postCallbacks();
+		}
+		Runnable[] hooks;
+		synchronized (doneHooks) {
+			hooksInvoked = true;
+			hooks = doneHooks.toArray(new Runnable[doneHooks.size()]);
+			doneHooks.clear();
+		}
+		for (Runnable hook : hooks) {
+			hook.run();
 		}
 		super.done();
 	}
@@ -160,14 +254,69 @@ public class RequestFutureTask<T> extends FutureTask<T> implements RequestFuture
 	}
 
 	/**
-	 * Get handler for the main looper
+	 * Posts delivery of the pending callbacks to the callback executor, if delivery is already posted then it will deliver all of them
 	 */
-	@NonNull
-	private Handler getHandler() {
-		if (handler == null) {
-			handler = new Handler(Looper.getMainLooper());
+	private void postCallbacks() {
+		synchronized (callbackLock) {
+			if (callbacksPosted) {
+				return;
+			}
+			callbacksPosted = true;
+		}
+		callbackExecutor.execute(this::deliverCallbacks);
+	}
+
+	/**
+	 * Delivers pending callbacks, callbacks which arrive during the delivery are delivered by the same call so deliveries of this task never run in parallel
+	 */
+	private void deliverCallbacks() {
+		RequestListener<T> listener = this.listener;
+		boolean posted = true;
+		try {
+			while (true) {
+				boolean preExecute;
+				boolean result;
+				synchronized (callbackLock) {
+					preExecute = started && !preExecuteDelivered;
+					result = isDone() && !resultDelivered;
+					if (!preExecute && !result) {
+						callbacksPosted = false;
+						posted = false;
+						return;
+					}
+					preExecuteDelivered |= preExecute;
+					resultDelivered |= result;
+				}
+				if (listener != null) {
+					deliverCallbacks(listener, preExecute, result);
+				}
+			}
+		} finally {
+			if (posted) {
+				// listener threw an exception, next callbacks have to be posted again
+				synchronized (callbackLock) {
+					callbacksPosted = false;
+				}
+			}
+		}
+	}
+
+	private void deliverCallbacks(@NonNull RequestListener<T> listener, boolean preExecute, boolean result) {
+		if (preExecute) {
+			listener.onPreExecute();
+		}
+		if (result) {
+			if (isCancelled()) {
+				listener.onCanceled();
+			} else {
+				try {
+					listener.onSuccess(get());
+				} catch (RequestException e) {
+					listener.onFailed(e);
+				}
+			}
+			listener.onPostExecute();
 		}
-		return handler;
 	}
 
 }
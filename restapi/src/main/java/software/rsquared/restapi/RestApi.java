@@ -1,14 +1,21 @@
 package software.rsquared.restapi;
 
+import android.os.Build;
 import android.support.annotation.IntDef;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.annotation.RequiresApi;
 import android.util.SparseArray;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.reactivestreams.Publisher;
 
 import software.rsquared.restapi.exceptions.RequestException;
 import software.rsquared.restapi.listeners.RequestListener;
@@ -28,7 +35,7 @@ public class RestApi {
 	@NonNull
 	private static SparseArray<RequestFuture> requests = new SparseArray<>();
 	@NonNull
-	private static SparseArray<PoolRequest> poolRequests = new SparseArray<>();
+	private static SparseArray<PoolRequest<?>> poolRequests = new SparseArray<>();
 
 	static RestApiConfiguration getConfiguration() {
 		return configuration;
@@ -48,13 +55,13 @@ public class RestApi {
 	}
 
 	public static <E> E executeSync(@NonNull Request<E> request) throws RequestException {
-		return request.execute().get();
+		return request.executeSync(null).get();
 	}
 
 	@Nullable
 	public static <E> E executeSync(@NonNull Request<E> request, @Nullable SyncRequestListener<E> listener) {
 		try {
-			return request.execute(listener).get();
+			return request.executeSync(listener).get();
 		} catch (RequestException e) {
 			//exceptions should be caught in listener
 			return null;
@@ -102,6 +109,67 @@ public class RestApi {
 		requests.put(requestCode, future);
 	}
 
+	/**
+	 * Executes request and returns future completed with its result, so dependent requests can be chained without
+	 * blocking any thread e.g. {@code executeAsync(login).thenCompose(user -> executeAsync(new ProfileRequest(user)))}.
+	 * Cancelling returned future cancels the request and its http call.
+	 *
+	 * @see RequestCompletableFuture
+	 */
+	@RequiresApi(api = Build.VERSION_CODES.N)
+	@NonNull
+	public static <E> CompletableFuture<E> executeAsync(@NonNull Request<E> request) {
+		return request.executeAsync();
+	}
+
+	/**
+	 * Executes all requests at once and returns future completed with the list of their results (in the order of the requests).
+	 * If any request fails then returned future fails with its exception and the other requests are cancelled.
+	 * Cancelling returned future cancels all requests.
+	 */
+	@RequiresApi(api = Build.VERSION_CODES.N)
+	@NonNull
+	public static <E> CompletableFuture<List<E>> executeAllAsync(@NonNull List<? extends Request<E>> requests) {
+		List<CompletableFuture<E>> futures = new ArrayList<>(requests.size());
+		RequestCompletableFuture<List<E>> result = new RequestCompletableFuture<>(() -> {
+			for (CompletableFuture<E> future : futures) {
+				future.cancel(true);
+			}
+		});
+		for (Request<E> request : requests) {
+			futures.add(request.executeAsync());
+		}
+		for (CompletableFuture<E> future : futures) {
+			future.whenComplete((value, e) -> {
+				if (e != null && result.completeExceptionally(e)) {
+					for (CompletableFuture<E> other : futures) {
+						other.cancel(true);
+					}
+				}
+			});
+		}
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).thenRun(() -> {
+			List<E> results = new ArrayList<>(futures.size());
+			for (CompletableFuture<E> future : futures) {
+				results.add(future.join());
+			}
+			result.complete(results);
+		});
+		return result;
+	}
+
+	/**
+	 * Returns publisher of the items of the paginated collection. Next page is loaded only when subscriber requests more
+	 * items than are left from the previous page, so collection of any size can be processed with bounded memory
+	 *
+	 * @param loader creates requests of the pages, cursor of the next page is read from the {@link Page}
+	 * @see PageList#readNextLink(okhttp3.Headers)
+	 */
+	@NonNull
+	public static <E> Publisher<E> publish(@NonNull PageLoader<E> loader) {
+		return new PagePublisher<>(loader);
+	}
+
 	public static PoolBuilder pool(@Executor int executor) {
 		return new PoolBuilder(executor);
 	}
@@ -114,7 +182,7 @@ public class RestApi {
 	}
 
 	public static void cancelPool(int requestCode) {
-		PoolRequest pool = poolRequests.get(requestCode);
+		PoolRequest<?> pool = poolRequests.get(requestCode);
 		if (pool != null) {
 			pool.cancel();
 		}
@@ -126,38 +194,52 @@ public class RestApi {
 	}
 
 	public static class PoolBuilder {
-		protected Map<Integer, Request> requestPool = new LinkedHashMap<>();
+		protected Map<Integer, Request<?>> requestPool = new LinkedHashMap<>();
 		@Executor
 		private int executor;
+		@Nullable
+		private java.util.concurrent.Executor callbackExecutor;
 
 		public PoolBuilder(@Executor int executor) {
 			this.executor = executor;
 		}
 
-		public PoolRequest build() {
-			PoolRequest poolRequest;
+		public PoolRequest<?> build() {
+			PoolRequest<?> poolRequest;
 			switch (executor) {
 				case THREAD_POOL_EXECUTOR:
-					poolRequest = new ThreadPoolRequest(requestPool.size());
+					poolRequest = new ThreadPoolRequest();
 					break;
 				case SERIAL_EXECUTOR:
 				default:
 					poolRequest = new SerialPoolRequest();
 					break;
 			}
-			for (Map.Entry<Integer, Request> entry : requestPool.entrySet()) {
+			for (Map.Entry<Integer, Request<?>> entry : requestPool.entrySet()) {
 				poolRequest.addTask(entry.getValue(), entry.getKey());
 			}
+			if (callbackExecutor != null) {
+				poolRequest.setCallbackExecutor(callbackExecutor);
+			}
 			return poolRequest;
 		}
 
+		/**
+		 * Sets executor on which listener callbacks of the pool are invoked.
+		 * By default value from {@link RestApiConfiguration#getCallbackExecutor()} is used
+		 */
+		public PoolBuilder setCallbackExecutor(@NonNull java.util.concurrent.Executor callbackExecutor) {
+			this.callbackExecutor = callbackExecutor;
+			return this;
+		}
+
 		public void execute(@Nullable RequestPoolListener listener) {
-			PoolRequest poolRequest = build();
+			PoolRequest<?> poolRequest = build();
 			poolRequest.execute(listener);
 		}
 
 		public void execute(@Nullable final RequestPoolListener listener, final int requestCode) {
-			final PoolRequest poolRequest = build();
+			final PoolRequest<?> poolRequest = build();
 			poolRequest.execute(new RequestPoolListener() {
 				@Override
 				public void onSuccess(@NonNull Map<Integer, Object> result) {
@@ -211,7 +293,7 @@ public class RestApi {
 		}
 
 
-		public PoolBuilder add(@NonNull Request request, int requestCode) {
+		public PoolBuilder add(@NonNull Request<?> request, int requestCode) {
 			requestPool.put(requestCode, request);
 			return this;
 		}
@@ -4,15 +4,26 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.text.TextUtils;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
+import okhttp3.Cache;
 import okhttp3.CertificatePinner;
+import okhttp3.ConnectionPool;
 import okhttp3.ConnectionSpec;
+import okhttp3.Dispatcher;
 import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import software.rsquared.restapi.listeners.ErrorCallback;
 import software.rsquared.restapi.serialization.Deserializer;
 import software.rsquared.restapi.serialization.ErrorDeserializer;
@@ -67,6 +78,64 @@ public class RestApiConfiguration {
 
 	private boolean enableTls12OnPreLollipop = false;
 
+	private OkHttpClient httpClient;
+
+	private int maxRequestThreads = 16;
+
+	private int requestQueueCapacity = Integer.MAX_VALUE;
+
+	private int maxRequestsPerHost = 8;
+
+	private boolean adaptiveConcurrency = false;
+
+	private RequestDispatcher dispatcher;
+
+	private boolean asyncExecution = false;
+	@NonNull
+	private Executor callbackExecutor = CallbackExecutors.mainThread();
+
+	private int maxIdleConnections = 5;
+
+	private long keepAliveDuration = 5 * 60 * 1000;
+
+	@Nullable
+	private List<Protocol> protocols;
+
+	private int pingInterval = 0;
+
+	@Nullable
+	private Cache cache;
+
+	@CachePolicy
+	private int cachePolicy = CachePolicy.DEFAULT;
+
+	@Nullable
+	private ObjectCache objectCache;
+
+	private boolean requestCoalescing = false;
+
+	@Nullable
+	private RetryPolicy retryPolicy;
+
+	@Nullable
+	private HedgePolicy hedgePolicy;
+
+	@Nullable
+	private CircuitBreaker circuitBreaker;
+
+	@Nullable
+	private RateLimiter rateLimiter;
+
+	@TokenPlacement
+	private int tokenPlacement = TokenPlacement.QUERY_PARAMETER;
+
+	@NonNull
+	private String tokenHeaderName = "X-Access-Token";
+
+	private float tokenRefreshFraction = 0.8f;
+
+	private float tokenRefreshJitter = 0.05f;
+
 	/**
 	 * Timeout for the connections.
 	 * A value of 0 means no timeout, otherwise values must be between 1 and Integer.MAX_VALUE milliseconds.<p>
@@ -83,6 +152,7 @@ public class RestApiConfiguration {
 	 */
 	public RestApiConfiguration setTimeout(int timeout) {
 		this.timeout = timeout;
+		invalidateHttpClient();
 		return this;
 	}
 
@@ -157,9 +227,10 @@ public class RestApiConfiguration {
 	public RestApiConfiguration setAuthorization(@NonNull String user, @NonNull String password) {
 		if (TextUtils.isEmpty(user) || TextUtils.isEmpty(password)) {
 			basicAuthorization = null;
-			return this;
+		} else {
+			basicAuthorization = new BasicAuthorization(user, password);
 		}
-		basicAuthorization = new BasicAuthorization(user, password);
+		invalidateHttpClient();
 		return this;
 	}
 
@@ -323,6 +394,7 @@ public class RestApiConfiguration {
 
 	public RestApiConfiguration setConnectionSpec(ConnectionSpec connectionSpec) {
 		this.connectionSpec = connectionSpec;
+		invalidateHttpClient();
 		return this;
 	}
 
@@ -332,6 +404,7 @@ public class RestApiConfiguration {
 
 	public RestApiConfiguration setCertificatePinner(CertificatePinner certificatePinner) {
 		this.certificatePinner = certificatePinner;
+		invalidateHttpClient();
 		return this;
 	}
 
@@ -341,6 +414,7 @@ public class RestApiConfiguration {
 
 	public RestApiConfiguration setEnableTls12OnPreLollipop(boolean enableTls12OnPreLollipop) {
 		this.enableTls12OnPreLollipop = enableTls12OnPreLollipop;
+		invalidateHttpClient();
 		return this;
 	}
 
@@ -369,4 +443,630 @@ public class RestApiConfiguration {
 	public RestApiLogger getLogger() {
 		return logger;
 	}
+
+	/**
+	 * Maximum number of the threads used to execute requests
+	 * <p>
+	 * default: 16
+	 */
+	public int getMaxRequestThreads() {
+		return maxRequestThreads;
+	}
+
+	/**
+	 * Sets maximum number of the threads used to execute requests. Threads are shared by all requests and pools of requests
+	 * <p>
+	 * default: 16
+	 */
+	public RestApiConfiguration setMaxRequestThreads(int maxRequestThreads) {
+		if (maxRequestThreads <= 0) {
+			throw new IllegalArgumentException("maxRequestThreads < 1: " + maxRequestThreads);
+		}
+		this.maxRequestThreads = maxRequestThreads;
+		invalidateDispatcher();
+		return this;
+	}
+
+	/**
+	 * Maximum number of the requests waiting for the free thread
+	 * <p>
+	 * default: {@link Integer#MAX_VALUE}
+	 */
+	public int getRequestQueueCapacity() {
+		return requestQueueCapacity;
+	}
+
+	/**
+	 * Sets maximum number of the requests waiting for the free thread. Requests above this limit fail immediately
+	 * <p>
+	 * default: {@link Integer#MAX_VALUE}
+	 */
+	public RestApiConfiguration setRequestQueueCapacity(int requestQueueCapacity) {
+		if (requestQueueCapacity <= 0) {
+			throw new IllegalArgumentException("requestQueueCapacity < 1: " + requestQueueCapacity);
+		}
+		this.requestQueueCapacity = requestQueueCapacity;
+		invalidateDispatcher();
+		return this;
+	}
+
+	/**
+	 * Maximum number of the requests executed at the same time to one host
+	 * <p>
+	 * default: 8
+	 */
+	public int getMaxRequestsPerHost() {
+		return maxRequestsPerHost;
+	}
+
+	/**
+	 * Sets maximum number of the requests executed at the same time to one host. Requests above this limit wait until one of the running requests finishes
+	 * <p>
+	 * default: 8
+	 */
+	public RestApiConfiguration setMaxRequestsPerHost(int maxRequestsPerHost) {
+		if (maxRequestsPerHost <= 0) {
+			throw new IllegalArgumentException("maxRequestsPerHost < 1: " + maxRequestsPerHost);
+		}
+		this.maxRequestsPerHost = maxRequestsPerHost;
+		invalidateDispatcher();
+		invalidateHttpClient();
+		return this;
+	}
+
+	/**
+	 * Returns true if limit of the requests executed at the same time to one host adapts to the latency and errors of the calls
+	 * <p>
+	 * default: false
+	 */
+	public boolean isAdaptiveConcurrency() {
+		return adaptiveConcurrency;
+	}
+
+	/**
+	 * Set true if limit of the requests executed at the same time to one host should adapt to the latency and errors of the calls.
+	 * Limit is decreased when calls fail because of the server overload or become slower and slowly increased otherwise,
+	 * {@link #setMaxRequestsPerHost(int) max requests per host} is the upper bound of the limit
+	 * <p>
+	 * default: false
+	 */
+	public RestApiConfiguration setAdaptiveConcurrency(boolean adaptiveConcurrency) {
+		this.adaptiveConcurrency = adaptiveConcurrency;
+		invalidateDispatcher();
+		return this;
+	}
+
+	/**
+	 * Maximum number of the idle connections kept in the connection pool
+	 * <p>
+	 * default: 5
+	 */
+	public int getMaxIdleConnections() {
+		return maxIdleConnections;
+	}
+
+	/**
+	 * Sets maximum number of the idle connections kept in the connection pool
+	 * <p>
+	 * default: 5
+	 */
+	public RestApiConfiguration setMaxIdleConnections(int maxIdleConnections) {
+		if (maxIdleConnections < 0) {
+			throw new IllegalArgumentException("maxIdleConnections < 0: " + maxIdleConnections);
+		}
+		this.maxIdleConnections = maxIdleConnections;
+		invalidateHttpClient();
+		return this;
+	}
+
+	/**
+	 * Time in milliseconds after which idle connection is closed
+	 * <p>
+	 * default: 5min
+	 */
+	public long getKeepAliveDuration() {
+		return keepAliveDuration;
+	}
+
+	/**
+	 * Sets time in milliseconds after which idle connection is closed
+	 * <p>
+	 * default: 5min
+	 */
+	public RestApiConfiguration setKeepAliveDuration(long keepAliveDuration) {
+		if (keepAliveDuration <= 0) {
+			throw new IllegalArgumentException("keepAliveDuration <= 0: " + keepAliveDuration);
+		}
+		this.keepAliveDuration = keepAliveDuration;
+		invalidateHttpClient();
+		return this;
+	}
+
+	/**
+	 * Protocols used to communicate with the server, null if default protocols of the {@link OkHttpClient} are used
+	 * <p>
+	 * default: null (http/2 and http/1.1)
+	 */
+	@Nullable
+	public List<Protocol> getProtocols() {
+		return protocols;
+	}
+
+	/**
+	 * Sets protocols used to communicate with the server. List must contain {@link Protocol#HTTP_1_1} or only {@link Protocol#H2_PRIOR_KNOWLEDGE}
+	 * (http/2 without TLS e.g. for the local server). Http/2 allows to execute many requests to the same host over one connection.
+	 * <p>
+	 * default: null (http/2 and http/1.1)
+	 */
+	public RestApiConfiguration setProtocols(@Nullable List<Protocol> protocols) {
+		if (protocols != null) {
+			List<Protocol> list = new ArrayList<>(protocols);
+			if (!list.contains(Protocol.H2_PRIOR_KNOWLEDGE) && !list.contains(Protocol.HTTP_1_1)) {
+				throw new IllegalArgumentException("protocols must contain h2_prior_knowledge or http/1.1: " + list);
+			}
+			if (list.contains(Protocol.H2_PRIOR_KNOWLEDGE) && list.size() > 1) {
+				throw new IllegalArgumentException("protocols containing h2_prior_knowledge cannot use other protocols: " + list);
+			}
+			if (list.contains(Protocol.HTTP_1_0)) {
+				throw new IllegalArgumentException("protocols must not contain http/1.0: " + list);
+			}
+			protocols = Collections.unmodifiableList(list);
+		}
+		this.protocols = protocols;
+		invalidateHttpClient();
+		return this;
+	}
+
+	/**
+	 * Interval in milliseconds between http/2 and web socket pings, 0 if pings are disabled
+	 * <p>
+	 * default: 0
+	 */
+	public int getPingInterval() {
+		return pingInterval;
+	}
+
+	/**
+	 * Sets interval in milliseconds between http/2 and web socket pings. Connection is closed if server doesn't respond to the ping,
+	 * so broken connections are not reused. Use 0 to disable pings
+	 * <p>
+	 * default: 0
+	 */
+	public RestApiConfiguration setPingInterval(int pingInterval) {
+		if (pingInterval < 0) {
+			throw new IllegalArgumentException("pingInterval < 0: " + pingInterval);
+		}
+		this.pingInterval = pingInterval;
+		invalidateHttpClient();
+		return this;
+	}
+
+	/**
+	 * Http cache of the responses or null if cache is disabled
+	 * <p>
+	 * default: null
+	 */
+	@Nullable
+	public Cache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Enables http cache of the responses stored in the given directory. Responses are cached according to the Cache-Control headers
+	 * and stale responses are revalidated with the ETag or Last-Modified value. Directory must be used only by this cache
+	 * <p>
+	 * default: disabled
+	 *
+	 * <p>
+	 * Cache with the same directory and size is reused. Previous cache in the same directory is closed when calls of the previous
+	 * http client are finished, cache in the other directory is not closed, because requests which are in progress may still use it.
+	 * It can be closed with {@link Cache#close()} when these requests are finished
+	 *
+	 * @param directory directory of the cache or null to disable the cache
+	 * @param maxSize   maximum size of the cache in bytes
+	 * @see #setCachePolicy(int)
+	 */
+	public synchronized RestApiConfiguration setCache(@Nullable File directory, long maxSize) {
+		Cache previous = cache;
+		boolean sameDirectory = previous != null && directory != null && previous.directory().equals(directory);
+		if (sameDirectory && previous.maxSize() == maxSize) {
+			return this;
+		}
+		OkHttpClient previousClient = httpClient;
+		cache = directory == null ? null : new Cache(directory, maxSize);
+		invalidateHttpClient();
+		if (sameDirectory) {
+			// directory mustn't be used by two caches at once
+			closeWhenIdle(previous, previousClient);
+		}
+		return this;
+	}
+
+	private static void closeWhenIdle(@NonNull Cache cache, @Nullable OkHttpClient client) {
+		Runnable close = () -> {
+			try {
+				cache.close();
+			} catch (IOException ignored) {
+			}
+		};
+		if (client == null) {
+			close.run();
+			return;
+		}
+		// callback is set before the check, so calls which finish meanwhile don't leave the cache open
+		client.dispatcher().setIdleCallback(close);
+		if (client.dispatcher().runningCallsCount() == 0) {
+			close.run();
+		}
+	}
+
+	/**
+	 * Policy of reading responses from the cache used by {@link GetRequest} if request doesn't set its own policy
+	 * <p>
+	 * default: {@link CachePolicy#DEFAULT}
+	 */
+	@CachePolicy
+	public int getCachePolicy() {
+		return cachePolicy;
+	}
+
+	/**
+	 * Sets policy of reading responses from the cache used by {@link GetRequest} if request doesn't set its own policy
+	 * <p>
+	 * default: {@link CachePolicy#DEFAULT}
+	 *
+	 * @see GetRequest#setCachePolicy(int)
+	 */
+	public RestApiConfiguration setCachePolicy(@CachePolicy int cachePolicy) {
+		this.cachePolicy = cachePolicy;
+		return this;
+	}
+
+	/**
+	 * Cache of the deserialized results or null if results are not cached
+	 * <p>
+	 * default: null
+	 */
+	@Nullable
+	public ObjectCache getObjectCache() {
+		return objectCache;
+	}
+
+	/**
+	 * Sets cache of the deserialized results. Cached result is returned without the http call, so it is used before the {@link #setCache(File, long) http cache}.
+	 * Only results of the {@link GetRequest get requests} with time to live set in the cache are stored.
+	 * Cached result is the same object for every request with the same key, so it must be treated as immutable.
+	 * Requests whose results are modified should return null from the {@link Request#getCacheKey(okhttp3.HttpUrl)}
+	 * <p>
+	 * default: null
+	 */
+	public RestApiConfiguration setObjectCache(@Nullable ObjectCache objectCache) {
+		this.objectCache = objectCache;
+		return this;
+	}
+
+	/**
+	 * Returns true if identical {@link GetRequest get requests} executed at the same time share one http call
+	 * <p>
+	 * default: false
+	 */
+	public boolean isRequestCoalescing() {
+		return requestCoalescing;
+	}
+
+	/**
+	 * Set true if identical {@link GetRequest get requests} executed at the same time should share one http call. Requests are identical
+	 * if they have the same class, url and headers. Every request notifies its own listener, but all of them receive the same result object,
+	 * so it must be treated as immutable. Can be changed for the single request by {@link GetRequest#setCoalescing(boolean)},
+	 * disable coalescing of the requests whose results are modified
+	 * <p>
+	 * default: false
+	 */
+	public RestApiConfiguration setRequestCoalescing(boolean requestCoalescing) {
+		this.requestCoalescing = requestCoalescing;
+		return this;
+	}
+
+	/**
+	 * Policy of the retries of the failed http calls or null if calls are not retried
+	 * <p>
+	 * default: null
+	 */
+	@Nullable
+	public RetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+
+	/**
+	 * Sets policy of the retries of the failed http calls, null disables retries. Can be changed for the single request by
+	 * {@link Request#setRetryPolicy(RetryPolicy)}
+	 * <p>
+	 * default: null
+	 */
+	public RestApiConfiguration setRetryPolicy(@Nullable RetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+		return this;
+	}
+
+	/**
+	 * Policy of the hedged get and head calls or null if calls are not hedged
+	 * <p>
+	 * default: null
+	 */
+	@Nullable
+	public HedgePolicy getHedgePolicy() {
+		return hedgePolicy;
+	}
+
+	/**
+	 * Sets policy of the hedged get and head calls, null disables hedging. Hedged calls are always enqueued, even if
+	 * {@link #setAsyncExecution(boolean) asynchronous execution} is disabled. Can be changed for the single request by
+	 * {@link Request#setHedgePolicy(HedgePolicy)}
+	 * <p>
+	 * default: null
+	 */
+	public RestApiConfiguration setHedgePolicy(@Nullable HedgePolicy hedgePolicy) {
+		this.hedgePolicy = hedgePolicy;
+		return this;
+	}
+
+	/**
+	 * Circuit breaker which stops calls to the failing hosts or null if it's not used
+	 * <p>
+	 * default: null
+	 */
+	@Nullable
+	public CircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	/**
+	 * Sets circuit breaker which stops calls to the failing hosts, so requests fail immediately instead of waiting for the timeout.
+	 * Can be changed for the single request by {@link Request#setCircuitBreaker(CircuitBreaker)}
+	 * <p>
+	 * default: null
+	 */
+	public RestApiConfiguration setCircuitBreaker(@Nullable CircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+		return this;
+	}
+
+	/**
+	 * Rate limiter of the http calls or null if calls are not limited
+	 * <p>
+	 * default: null
+	 */
+	@Nullable
+	public RateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+
+	/**
+	 * Sets rate limiter of the http calls. Can be changed for the single request by {@link Request#setRateLimiter(RateLimiter)}
+	 * <p>
+	 * default: null
+	 */
+	public RestApiConfiguration setRateLimiter(@Nullable RateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+		return this;
+	}
+
+	/**
+	 * Place of the access token in the authorized requests
+	 * <p>
+	 * default: {@link TokenPlacement#QUERY_PARAMETER}
+	 */
+	@TokenPlacement
+	public int getTokenPlacement() {
+		return tokenPlacement;
+	}
+
+	/**
+	 * Sets place of the access token in the authorized requests. Token sent in the header doesn't change the url, so the same
+	 * responses for different users can be cached by the http caches (if server responds with "Vary: Authorization" header)
+	 * <p>
+	 * default: {@link TokenPlacement#QUERY_PARAMETER}
+	 */
+	public RestApiConfiguration setTokenPlacement(@TokenPlacement int tokenPlacement) {
+		this.tokenPlacement = tokenPlacement;
+		return this;
+	}
+
+	/**
+	 * Name of the header with the access token used with {@link TokenPlacement#CUSTOM_HEADER}
+	 * <p>
+	 * default: X-Access-Token
+	 */
+	@NonNull
+	public String getTokenHeaderName() {
+		return tokenHeaderName;
+	}
+
+	/**
+	 * Sets name of the header with the access token used with {@link TokenPlacement#CUSTOM_HEADER}
+	 * <p>
+	 * default: X-Access-Token
+	 */
+	public RestApiConfiguration setTokenHeaderName(@NonNull String tokenHeaderName) {
+		if (TextUtils.isEmpty(tokenHeaderName)) {
+			throw new IllegalArgumentException("tokenHeaderName is empty");
+		}
+		this.tokenHeaderName = tokenHeaderName;
+		return this;
+	}
+
+	/**
+	 * Part of the token lifetime after which the token is refreshed in the background
+	 * <p>
+	 * default: 0.8
+	 */
+	public float getTokenRefreshFraction() {
+		return tokenRefreshFraction;
+	}
+
+	/**
+	 * Sets part of the token lifetime (between 0 and 1) after which the token is refreshed in the background, so requests don't wait
+	 * for the refresh when the token expires. Works only if {@link Authorization#getExpirationTime()} is known. 0 disables background refresh
+	 * <p>
+	 * default: 0.8
+	 */
+	public RestApiConfiguration setTokenRefreshFraction(float tokenRefreshFraction) {
+		if (tokenRefreshFraction < 0 || tokenRefreshFraction > 1) {
+			throw new IllegalArgumentException("tokenRefreshFraction must be between 0 and 1: " + tokenRefreshFraction);
+		}
+		this.tokenRefreshFraction = tokenRefreshFraction;
+		return this;
+	}
+
+	/**
+	 * Maximum random shift of the background token refresh as part of the token lifetime
+	 * <p>
+	 * default: 0.05
+	 */
+	public float getTokenRefreshJitter() {
+		return tokenRefreshJitter;
+	}
+
+	/**
+	 * Sets maximum random shift of the background token refresh as part of the token lifetime, so many clients with tokens
+	 * issued at the same time don't refresh them at once
+	 * <p>
+	 * default: 0.05
+	 */
+	public RestApiConfiguration setTokenRefreshJitter(float tokenRefreshJitter) {
+		if (tokenRefreshJitter < 0 || tokenRefreshJitter > 1) {
+			throw new IllegalArgumentException("tokenRefreshJitter must be between 0 and 1: " + tokenRefreshJitter);
+		}
+		this.tokenRefreshJitter = tokenRefreshJitter;
+		return this;
+	}
+
+	/**
+	 * Returns true if http calls are enqueued instead of blocking the request thread until response is received
+	 * <p>
+	 * default: false
+	 */
+	public boolean isAsyncExecution() {
+		return asyncExecution;
+	}
+
+	/**
+	 * Set true if http calls should be enqueued instead of blocking the request thread until response is received.
+	 * In this mode request thread is released as soon as the call is sent and response is deserialized on the small pool of the computation threads.
+	 * Can be changed for the single request by {@link Request#setAsyncExecution(boolean)}
+	 * <p>
+	 * default: false
+	 */
+	public RestApiConfiguration setAsyncExecution(boolean asyncExecution) {
+		this.asyncExecution = asyncExecution;
+		return this;
+	}
+
+	/**
+	 * Executor on which listener callbacks are invoked
+	 * <p>
+	 * default: {@link CallbackExecutors#mainThread()}
+	 */
+	@NonNull
+	public Executor getCallbackExecutor() {
+		return callbackExecutor;
+	}
+
+	/**
+	 * Sets executor on which listener callbacks are invoked: {@link CallbackExecutors#mainThread() main thread},
+	 * {@link CallbackExecutors#direct() thread which executed the request} or any custom executor.
+	 * Can be changed for the single request by {@link Request#setCallbackExecutor(Executor)}
+	 * <p>
+	 * default: {@link CallbackExecutors#mainThread()}
+	 */
+	public RestApiConfiguration setCallbackExecutor(@NonNull Executor callbackExecutor) {
+		this.callbackExecutor = callbackExecutor;
+		return this;
+	}
+
+	/**
+	 * Dispatcher shared by all requests, created on the first use
+	 */
+	@NonNull
+	synchronized RequestDispatcher getDispatcher() {
+		if (dispatcher == null) {
+			dispatcher = new RequestDispatcher(maxRequestThreads, requestQueueCapacity, maxRequestsPerHost, adaptiveConcurrency);
+		}
+		return dispatcher;
+	}
+
+	/**
+	 * Drops the dispatcher, requests already submitted will be finished by the old one and its idle threads will be released
+	 */
+	private synchronized void invalidateDispatcher() {
+		dispatcher = null;
+	}
+
+	/**
+	 * Http client shared by all requests. Client is created on the first use and recreated after any change
+	 * of the connection settings, so connections to the same host can be reused between requests.
+	 */
+	@NonNull
+	public synchronized OkHttpClient getHttpClient() {
+		if (httpClient == null) {
+			httpClient = createHttpClient().build();
+		}
+		return httpClient;
+	}
+
+	/**
+	 * Creates builder of the shared http client. Override this method if client needs additional configuration
+	 *
+	 * @see #getHttpClient()
+	 */
+	@NonNull
+	protected OkHttpClient.Builder createHttpClient() {
+		Dispatcher callDispatcher = new Dispatcher();
+		callDispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+		OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder()
+				.dispatcher(callDispatcher)
+				.connectionPool(new ConnectionPool(maxIdleConnections, keepAliveDuration, TimeUnit.MILLISECONDS))
+				.followSslRedirects(true)
+				.connectTimeout(timeout, TimeUnit.MILLISECONDS)
+				.readTimeout(timeout, TimeUnit.MILLISECONDS)
+				.pingInterval(pingInterval, TimeUnit.MILLISECONDS);
+		if (protocols != null) {
+			clientBuilder.protocols(protocols);
+		}
+		if (cache != null) {
+			clientBuilder.cache(cache)
+					.addInterceptor(new CacheInterceptor());
+		}
+		if (connectionSpec != null) {
+			clientBuilder.connectionSpecs(Collections.singletonList(connectionSpec));
+		}
+
+		if (certificatePinner != null) {
+			clientBuilder.certificatePinner(certificatePinner);
+		}
+
+		final BasicAuthorization basicAuthorization = this.basicAuthorization;
+		if (basicAuthorization != null) {
+			clientBuilder.authenticator((route, response) -> {
+				okhttp3.Request.Builder requestBuilder = response.request()
+						.newBuilder()
+						.header("Authorization", basicAuthorization.getBasicAuthorization());
+				return requestBuilder.build();
+			});
+		}
+		if (enableTls12OnPreLollipop) {
+			return Request.enableTls12OnPreLollipop(clientBuilder);
+		}
+		return clientBuilder;
+	}
+
+	/**
+	 * Drops the shared http client, new one will be created with the current settings on the next request
+	 */
+	protected synchronized void invalidateHttpClient() {
+		if (httpClient != null) {
+			httpClient.connectionPool().evictAll();
+			httpClient = null;
+		}
+	}
 }
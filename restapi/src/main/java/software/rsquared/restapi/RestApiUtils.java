@@ -1,7 +1,12 @@
 package software.rsquared.restapi;
 
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import java.util.Date;
+
+import okhttp3.Response;
+import okhttp3.internal.http.HttpDate;
 
 /**
  * @author Rafał Zajfert
@@ -17,6 +22,22 @@ class RestApiUtils {
 		}
 	}
 
+	/**
+	 * Returns time in milliseconds from the Retry-After header (seconds or http date) or -1 if there is no such header
+	 */
+	static long getRetryAfter(@NonNull Response response) {
+		String value = response.header("Retry-After");
+		if (value == null) {
+			return -1;
+		}
+		try {
+			return Math.max(0, Long.parseLong(value.trim()) * 1000);
+		} catch (NumberFormatException e) {
+			Date date = HttpDate.parse(value);
+			return date == null ? -1 : Math.max(0, date.getTime() - System.currentTimeMillis());
+		}
+	}
+
 	@Nullable
 	private static StackTraceElement getStackTraceElement(String requestClassName) {
 		StackTraceElement[] elements = Thread.currentThread().getStackTrace();
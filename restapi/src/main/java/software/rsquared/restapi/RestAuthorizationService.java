@@ -1,8 +1,10 @@
 package software.rsquared.restapi;
 
+import android.support.annotation.NonNull;
 import android.support.annotation.WorkerThread;
 
 import software.rsquared.restapi.exceptions.RefreshTokenException;
+import software.rsquared.restapi.listeners.RefreshTokenCallback;
 
 /**
  * @author Rafal Zajfert
@@ -15,6 +17,26 @@ public interface RestAuthorizationService {
 
 	void refreshToken();
 
+	/**
+	 * Refreshes token without blocking the calling thread and notifies callback when it's done. Only one refresh is executed at the same time,
+	 * requests which need authorization wait for its result. With {@link RestApiConfiguration#setAsyncExecution(boolean) asynchronous execution}
+	 * waiting requests don't block the dispatcher threads, otherwise every waiting request blocks one thread.
+	 * <p>
+	 * Waiting requests still hold their slots of the {@link RestApiConfiguration#setMaxRequestsPerHost(int) host limit}, so the refresh call
+	 * must not be executed by the RestApi request to the same host, it could wait for these slots forever. Use separate http client for it.
+	 * <p>
+	 * Default implementation calls {@link #refreshToken()} on the current thread
+	 */
+	default void refreshToken(@NonNull RefreshTokenCallback callback) {
+		try {
+			refreshToken();
+		} catch (Exception e) {
+			callback.onFailed(e);
+			return;
+		}
+		callback.onSuccess();
+	}
+
 	Authorization getAuthorization();
 
 	/**
@@ -0,0 +1,210 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import okhttp3.Response;
+
+/**
+ * Policy of the automatic retries of the failed http calls. Call is retried if server responds with one of the
+ * {@link #setStatusCodes(int...) retryable status codes} or if the connection failed. Delay of the next retry grows
+ * exponentially and is randomized (full jitter), server's Retry-After header is honored.
+ * <p>
+ * All requests that use the same policy share one retry budget: every retry takes one token, every successful response
+ * gives back part of the token. When there are no tokens left, failed calls are not retried, so retries cannot multiply
+ * the load of the server that is already failing.
+ *
+ * @author Rafal Zajfert
+ * @see RestApiConfiguration#setRetryPolicy(RetryPolicy)
+ * @see Request#setRetryPolicy(RetryPolicy)
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class RetryPolicy {
+
+	private final Random random = new Random();
+	private int maxRetries = 3;
+	private long baseDelay = 500;
+	private long maxDelay = 30 * 1000;
+	private Set<Integer> statusCodes = new HashSet<>();
+	private boolean retryOnConnectionFailure = true;
+	private boolean retryNonIdempotent = false;
+	private float maxTokens = 10;
+	private float tokenRatio = 0.1f;
+	private float tokens = maxTokens;
+
+	public RetryPolicy() {
+		Collections.addAll(statusCodes, 408, 429, 502, 503, 504);
+	}
+
+	/**
+	 * Sets maximum number of the retries of one request
+	 * <p>
+	 * default: 3
+	 */
+	public RetryPolicy setMaxRetries(int maxRetries) {
+		if (maxRetries < 0) {
+			throw new IllegalArgumentException("maxRetries < 0: " + maxRetries);
+		}
+		this.maxRetries = maxRetries;
+		return this;
+	}
+
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	/**
+	 * Sets delay in milliseconds of the first retry, every next delay is two times longer. Real delay is random value
+	 * between 0 and calculated delay
+	 * <p>
+	 * default: 500ms
+	 */
+	public RetryPolicy setBaseDelay(long millis) {
+		if (millis < 0) {
+			throw new IllegalArgumentException("baseDelay < 0: " + millis);
+		}
+		this.baseDelay = millis;
+		return this;
+	}
+
+	public long getBaseDelay() {
+		return baseDelay;
+	}
+
+	/**
+	 * Sets maximum delay in milliseconds of the retry. If server asks (by Retry-After header) to wait longer than this then call is not retried
+	 * <p>
+	 * default: 30s
+	 */
+	public RetryPolicy setMaxDelay(long millis) {
+		if (millis < 0) {
+			throw new IllegalArgumentException("maxDelay < 0: " + millis);
+		}
+		this.maxDelay = millis;
+		return this;
+	}
+
+	public long getMaxDelay() {
+		return maxDelay;
+	}
+
+	/**
+	 * Sets response status codes after which call is retried
+	 * <p>
+	 * default: 408, 429, 502, 503, 504
+	 */
+	public RetryPolicy setStatusCodes(int... statusCodes) {
+		Set<Integer> codes = new HashSet<>();
+		for (int code : statusCodes) {
+			codes.add(code);
+		}
+		this.statusCodes = codes;
+		return this;
+	}
+
+	public Set<Integer> getStatusCodes() {
+		return Collections.unmodifiableSet(statusCodes);
+	}
+
+	/**
+	 * Set true if call should be retried when connection with the server failed
+	 * <p>
+	 * default: true
+	 */
+	public RetryPolicy setRetryOnConnectionFailure(boolean retryOnConnectionFailure) {
+		this.retryOnConnectionFailure = retryOnConnectionFailure;
+		return this;
+	}
+
+	public boolean isRetryOnConnectionFailure() {
+		return retryOnConnectionFailure;
+	}
+
+	/**
+	 * Set true if calls of the not {@link Request#isIdempotent() idempotent} requests (e.g. post) should be retried too.
+	 * Such request can be executed by the server more than once
+	 * <p>
+	 * default: false
+	 */
+	public RetryPolicy setRetryNonIdempotent(boolean retryNonIdempotent) {
+		this.retryNonIdempotent = retryNonIdempotent;
+		return this;
+	}
+
+	public boolean isRetryNonIdempotent() {
+		return retryNonIdempotent;
+	}
+
+	/**
+	 * Sets retry budget. Every retry takes one token, every successful response gives back {@code tokenRatio} of the token,
+	 * so in the long term number of the retries is limited to {@code tokenRatio} of the successful calls.
+	 * <p>
+	 * default: 10 tokens, 0.1 token for the success
+	 */
+	public synchronized RetryPolicy setRetryBudget(int maxTokens, float tokenRatio) {
+		if (maxTokens < 0) {
+			throw new IllegalArgumentException("maxTokens < 0: " + maxTokens);
+		}
+		if (tokenRatio < 0) {
+			throw new IllegalArgumentException("tokenRatio < 0: " + tokenRatio);
+		}
+		this.maxTokens = maxTokens;
+		this.tokenRatio = tokenRatio;
+		this.tokens = maxTokens;
+		return this;
+	}
+
+	/**
+	 * Returns delay in milliseconds after which the call should be retried or -1 if it shouldn't be retried
+	 *
+	 * @param retries    number of the retries of this request made so far
+	 * @param idempotent true if the request can be safely executed more than once
+	 * @param response   response of the call or null if connection failed
+	 */
+	long getRetryDelay(int retries, boolean idempotent, @Nullable Response response) {
+		if (response != null && !statusCodes.contains(response.code())) {
+			if (response.isSuccessful()) {
+				deposit();
+			}
+			return -1;
+		}
+		if (retries >= maxRetries || (!idempotent && !retryNonIdempotent) || (response == null && !retryOnConnectionFailure)) {
+			return -1;
+		}
+		long delay = getBackoff(retries);
+		if (response != null) {
+			long retryAfter = RestApiUtils.getRetryAfter(response);
+			if (retryAfter > maxDelay) {
+				return -1;
+			}
+			delay = Math.max(delay, retryAfter);
+		}
+		return withdraw() ? delay : -1;
+	}
+
+	private long getBackoff(int retries) {
+		long delay = retries >= 62 ? Long.MAX_VALUE : baseDelay << retries;
+		if (delay < baseDelay || delay > maxDelay) {
+			delay = maxDelay;
+		}
+		synchronized (random) {
+			return (long) (random.nextDouble() * delay);
+		}
+	}
+
+	private synchronized void deposit() {
+		tokens = Math.min(maxTokens, tokens + tokenRatio);
+	}
+
+	private synchronized boolean withdraw() {
+		if (tokens < 1) {
+			return false;
+		}
+		tokens--;
+		return true;
+	}
+}
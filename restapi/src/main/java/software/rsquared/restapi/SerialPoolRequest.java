@@ -13,10 +13,9 @@ import software.rsquared.restapi.exceptions.RequestException;
  */
 class SerialPoolRequest extends PoolRequest<SerialPoolRequest> {
 	private Map<Integer, Object> results = new LinkedHashMap<>();
-	private Iterator<Map.Entry<Integer, Request>> executeIterator;
+	private Iterator<Map.Entry<Integer, Request<?>>> executeIterator;
 
 	public SerialPoolRequest() {
-		super(1);
 	}
 
 	@Override
@@ -26,15 +25,16 @@ class SerialPoolRequest extends PoolRequest<SerialPoolRequest> {
 		}
 		executed = true;
 		executeIterator = requestPool.entrySet().iterator();
-		onPreExecute();
-		executeNext();
+		post(() -> {
+			onPreExecute();
+			executeNext();
+		});
 	}
 
 	private void executeNext() {
 		if (!cancelled && executeIterator.hasNext()) {
-			final Map.Entry<Integer, Request> requestEntry = executeIterator.next();
-			//noinspection unchecked
-			executor.submit(requestEntry.getValue().createRequestTask(), requestEntry.getValue().isErrorCallbackIgnored() ? null : RestApi.getConfiguration().getErrorCallback(), new PoolRequestListener(requestEntry.getKey()) {
+			final Map.Entry<Integer, Request<?>> requestEntry = executeIterator.next();
+			submit(requestEntry.getValue(), new PoolRequestListener(requestEntry.getKey()) {
 				@Override
 				public void onSuccess(Object result) {
 					int requestCode = getRequestCode();
@@ -0,0 +1,127 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.ResponseBody;
+import software.rsquared.restapi.listeners.ItemListener;
+import software.rsquared.restapi.serialization.Deserializer;
+
+/**
+ * Get request of the huge collection (top-level json array or newline delimited json) which is never read as a whole.
+ * Items are parsed one by one while the response body arrives and are passed to the {@link #onItems(List)} in batches of
+ * {@link #setBatchSize(int) batch size}. Type of the items is declared by the type parameter of the subclass e.g.
+ * {@code class ExportRequest extends StreamingRequest<Item>}. Result of the request is the number of the read items.
+ * <p>
+ * Response body is read on the request thread, so this request is never executed asynchronously, hedged or coalesced.
+ *
+ * @author Rafal Zajfert
+ * @see software.rsquared.restapi.serialization.Deserializer#readItems(Class, ResponseBody, ItemListener)
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public abstract class StreamingRequest<T> extends GetRequest<Long> {
+
+	private int batchSize = 100;
+
+	protected StreamingRequest() {
+		setHedgePolicy(null);
+	}
+
+	/**
+	 * Invoked with the next items read from the response. Items are delivered on the thread which reads the response,
+	 * reading is paused until this method returns
+	 */
+	@WorkerThread
+	protected abstract void onItems(@NonNull List<T> items) throws IOException;
+
+	/**
+	 * Sets number of the items passed at once to the {@link #onItems(List)}, 1 delivers every item as soon as it is read
+	 * <p>
+	 * default: 100
+	 */
+	protected void setBatchSize(int batchSize) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("batchSize < 1: " + batchSize);
+		}
+		this.batchSize = batchSize;
+	}
+
+	protected int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean isAsyncExecution() {
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean isCoalescing() {
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean isResponseBodyLogged() {
+		return false;
+	}
+
+	@Override
+	protected Long readResult(String content) {
+		return 0L;
+	}
+
+	/**
+	 * Reads items from the body stream and passes them to the {@link #onItems(List)}
+	 *
+	 * @throws IllegalStateException if the {@link #getDeserializer() deserializer} can't read items from the stream
+	 */
+	@Override
+	protected Long readResult(@NonNull ResponseBody body) throws IOException {
+		Deserializer deserializer = getDeserializer();
+		if (!deserializer.isReadingItemsSupported()) {
+			throw new IllegalStateException(deserializer.getClass().getSimpleName() + " doesn't support reading items from the stream");
+		}
+		ItemBatcher batcher = new ItemBatcher();
+		deserializer.readItems(getClass(), body, batcher);
+		batcher.flush();
+		return batcher.count;
+	}
+
+	/**
+	 * Collects read items into the batches
+	 */
+	private class ItemBatcher implements ItemListener<T> {
+		private List<T> batch = new ArrayList<>(Math.min(batchSize, 1024));
+		private long count;
+
+		@Override
+		public void onItem(T item) throws IOException {
+			batch.add(item);
+			count++;
+			if (batch.size() >= batchSize) {
+				flush();
+			}
+		}
+
+		void flush() throws IOException {
+			if (!batch.isEmpty()) {
+				List<T> items = batch;
+				batch = new ArrayList<>(Math.min(batchSize, 1024));
+				onItems(items);
+			}
+		}
+	}
+}
@@ -14,8 +14,7 @@ class ThreadPoolRequest extends PoolRequest<ThreadPoolRequest> {
 
 	private Map<Integer, Object> results = new LinkedHashMap<>();
 
-	public ThreadPoolRequest(int poolSize) {
-		super(poolSize);
+	public ThreadPoolRequest() {
 	}
 
 	public void execute() {
@@ -24,27 +23,31 @@ class ThreadPoolRequest extends PoolRequest<ThreadPoolRequest> {
 		}
 		executed = true;
 
-		ThreadPoolRequest.this.onPreExecute();
-		for (Map.Entry<Integer, Request> entry : requestPool.entrySet()) {
-			//noinspection unchecked
-			executor.submit(entry.getValue().createRequestTask(), entry.getValue().isErrorCallbackIgnored() ? null : RestApi.getConfiguration().getErrorCallback(), new PoolRequestListener(entry.getKey()) {
+		post(ThreadPoolRequest.this::onPreExecute);
+		for (Map.Entry<Integer, Request<?>> entry : requestPool.entrySet()) {
+			submit(entry.getValue(), new PoolRequestListener(entry.getKey()) {
 				@Override
 				public void onSuccess(Object result) {
-					int requestCode = getRequestCode();
-					ThreadPoolRequest.this.onTaskSuccess(result, requestCode);
-					results.put(requestCode, result);
-					checkFinished(false);
+					// callbacks of the requests can be invoked concurrently if the callback executor is not serial
+					synchronized (ThreadPoolRequest.this) {
+						int requestCode = getRequestCode();
+						ThreadPoolRequest.this.onTaskSuccess(result, requestCode);
+						results.put(requestCode, result);
+						checkFinished(false);
+					}
 				}
 
 				@Override
 				public void onFailed(RequestException e) {
-					int requestCode = getRequestCode();
-					ThreadPoolRequest.this.onFailed(e, requestCode);
-					if (ThreadPoolRequest.this.canContinueAfterFailed(e, requestCode)) {
-						results.put(requestCode, null);
-						checkFinished(false);
-					} else {
-						checkFinished(true);
+					synchronized (ThreadPoolRequest.this) {
+						int requestCode = getRequestCode();
+						ThreadPoolRequest.this.onFailed(e, requestCode);
+						if (ThreadPoolRequest.this.canContinueAfterFailed(e, requestCode)) {
+							results.put(requestCode, null);
+							checkFinished(false);
+						} else {
+							checkFinished(true);
+						}
 					}
 				}
 
@@ -71,7 +74,6 @@ class ThreadPoolRequest extends PoolRequest<ThreadPoolRequest> {
 				}
 			});
 		}
-		executor.shutdown();
 	}
 
 }
@@ -0,0 +1,33 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.IntDef;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Place of the access token in the {@link Request#needAuthorization() authorized} requests
+ *
+ * @author Rafal Zajfert
+ * @see RestApiConfiguration#setTokenPlacement(int)
+ */
+@IntDef({TokenPlacement.QUERY_PARAMETER, TokenPlacement.BEARER_HEADER, TokenPlacement.CUSTOM_HEADER})
+@Retention(RetentionPolicy.SOURCE)
+public @interface TokenPlacement {
+
+	/**
+	 * Token is added to the url as the access_token query parameter, so every user has different urls
+	 */
+	int QUERY_PARAMETER = 0;
+
+	/**
+	 * Token is sent in the Authorization header as "Bearer token". Url doesn't depend on the user, so responses with the
+	 * "Vary: Authorization" header can be cached
+	 */
+	int BEARER_HEADER = 1;
+
+	/**
+	 * Token is sent in the header with the name set by {@link RestApiConfiguration#setTokenHeaderName(String)}
+	 */
+	int CUSTOM_HEADER = 2;
+}
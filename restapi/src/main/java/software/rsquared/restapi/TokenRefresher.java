@@ -0,0 +1,245 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import software.rsquared.restapi.exceptions.RefreshTokenException;
+import software.rsquared.restapi.listeners.RefreshTokenCallback;
+
+/**
+ * Refreshes access token at most once at the same time. Threads that find invalid token during the refresh wait for its result
+ * instead of starting next refresh. Valid token is checked without any locking.
+ * <p>
+ * If expiration time of the token is known then refresh can be {@link #scheduleRefresh(RestAuthorizationService, RequestDispatcher, float, float) scheduled}
+ * before the token expires, so requests don't have to wait for it.
+ *
+ * @author Rafal Zajfert
+ */
+class TokenRefresher {
+
+	private final AtomicReference<Refresh> current = new AtomicReference<>();
+	private final AtomicReference<String> scheduledToken = new AtomicReference<>();
+	private final Random random = new Random();
+
+	/**
+	 * Makes sure that the token is valid, refreshes it if needed
+	 *
+	 * @return false if token could not be refreshed and request should stop working, true otherwise
+	 */
+	boolean ensureTokenValid(@NonNull RestAuthorizationService service) {
+		while (!service.isTokenValid()) {
+			Refresh refresh = current.get();
+			if (refresh == null) {
+				Refresh newRefresh = new Refresh(false);
+				if (!current.compareAndSet(null, newRefresh)) {
+					continue;
+				}
+				newRefresh.start(service);
+				// result of own refresh is final, even if the token is still invalid
+				return newRefresh.await();
+			}
+			if (!refresh.await()) {
+				return false;
+			}
+			if (!refresh.shouldCheckAgain()) {
+				return true;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Asynchronous variant of the {@link #ensureTokenValid(RestAuthorizationService)}, thread is not blocked while the token is refreshed.
+	 * Callback is invoked on the current thread if the token is valid, otherwise on the thread which finished the refresh
+	 */
+	void ensureTokenValid(@NonNull RestAuthorizationService service, @NonNull TokenCallback callback) {
+		while (!service.isTokenValid()) {
+			Refresh refresh = current.get();
+			if (refresh == null) {
+				Refresh newRefresh = new Refresh(false);
+				if (!current.compareAndSet(null, newRefresh)) {
+					continue;
+				}
+				newRefresh.whenDone(() -> callback.onTokenChecked(newRefresh.canContinue));
+				newRefresh.start(service);
+				return;
+			}
+			refresh.whenDone(() -> {
+				if (refresh.canContinue && refresh.shouldCheckAgain()) {
+					ensureTokenValid(service, callback);
+				} else {
+					callback.onTokenChecked(refresh.canContinue);
+				}
+			});
+			return;
+		}
+		callback.onTokenChecked(true);
+	}
+
+	/**
+	 * Schedules refresh of the current token after {@code fraction} of its remaining lifetime, shifted randomly by up to
+	 * {@code jitter} of the lifetime. Does nothing if expiration time of the token is unknown or refresh of this token is already scheduled
+	 */
+	void scheduleRefresh(@NonNull RestAuthorizationService service, @NonNull RequestDispatcher dispatcher, float fraction, float jitter) {
+		if (fraction <= 0) {
+			return;
+		}
+		Authorization authorization = service.getAuthorization();
+		if (authorization == null || authorization.getExpirationTime() <= 0) {
+			return;
+		}
+		String token = authorization.getAccessToken();
+		String scheduled = scheduledToken.get();
+		if (token == null || token.equals(scheduled) || !scheduledToken.compareAndSet(scheduled, token)) {
+			return;
+		}
+		long lifetime = authorization.getExpirationTime() - System.currentTimeMillis();
+		if (lifetime <= 0) {
+			return;
+		}
+		double shift;
+		synchronized (random) {
+			shift = (random.nextDouble() * 2 - 1) * jitter;
+		}
+		long delay = Math.max(0, Math.min(lifetime, (long) (lifetime * (fraction + shift))));
+		dispatcher.schedule(() -> {
+			try {
+				dispatcher.execute(() -> refreshInBackground(service, dispatcher, token, fraction, jitter));
+			} catch (RejectedExecutionException e) {
+				// exception thrown by the scheduled action would be swallowed by its future, next request will schedule refresh again
+				scheduledToken.compareAndSet(token, null);
+			}
+		}, delay);
+	}
+
+	private void refreshInBackground(@NonNull RestAuthorizationService service, @NonNull RequestDispatcher dispatcher, @NonNull String token, float fraction, float jitter) {
+		Authorization authorization = service.getAuthorization();
+		if (authorization == null || !token.equals(authorization.getAccessToken())) {
+			// token was already changed
+			scheduleRefresh(service, dispatcher, fraction, jitter);
+			return;
+		}
+		Refresh refresh = new Refresh(true);
+		if (!current.compareAndSet(null, refresh)) {
+			return;
+		}
+		// thread is not blocked until the refresh is finished
+		refresh.whenDone(() -> {
+			if (refresh.succeeded) {
+				scheduleRefresh(service, dispatcher, fraction, jitter);
+			} else {
+				// next request will schedule refresh again
+				scheduledToken.compareAndSet(token, null);
+			}
+		});
+		refresh.start(service);
+	}
+
+	/**
+	 * Callback of the asynchronous token check
+	 */
+	interface TokenCallback {
+
+		/**
+		 * @param canContinue false if token could not be refreshed and request should stop working
+		 */
+		void onTokenChecked(boolean canContinue);
+	}
+
+	/**
+	 * Single refresh of the token
+	 */
+	private class Refresh implements RefreshTokenCallback {
+		private final CountDownLatch done = new CountDownLatch(1);
+		private final List<Runnable> actions = new ArrayList<>();
+		private final boolean background;
+		@Nullable
+		private RestAuthorizationService service;
+		private volatile boolean canContinue = true;
+		private volatile boolean succeeded;
+
+		Refresh(boolean background) {
+			this.background = background;
+		}
+
+		void start(@NonNull RestAuthorizationService service) {
+			this.service = service;
+			if (!background && service.isTokenValid()) {
+				// token was refreshed by previous refresh just before this one started
+				onSuccess();
+				return;
+			}
+			try {
+				service.refreshToken(this);
+			} catch (Exception e) {
+				onFailed(e);
+			}
+		}
+
+		@Override
+		public void onSuccess() {
+			succeeded = true;
+			finish();
+		}
+
+		@Override
+		public void onFailed(@NonNull Exception e) {
+			// fail of the background refresh is not reported, token is still valid and it will be refreshed again when it expires
+			if (!background && done.getCount() > 0 && service != null) {
+				canContinue = service.onRefreshTokenFailed(new RefreshTokenException("Problem during obtaining refresh token", e));
+			}
+			finish();
+		}
+
+		/**
+		 * Returns true if the token should be checked again after this refresh. Token could be changed again meanwhile
+		 * or this was background refresh whose fail is not reported to the service.
+		 */
+		boolean shouldCheckAgain() {
+			return succeeded || background;
+		}
+
+		/**
+		 * Runs action when the refresh is finished, on the thread which finished it. Action is run immediately if the refresh is already finished
+		 */
+		void whenDone(@NonNull Runnable action) {
+			synchronized (actions) {
+				if (done.getCount() > 0) {
+					actions.add(action);
+					return;
+				}
+			}
+			action.run();
+		}
+
+		private void finish() {
+			current.compareAndSet(this, null);
+			List<Runnable> actions;
+			synchronized (this.actions) {
+				done.countDown();
+				actions = new ArrayList<>(this.actions);
+				this.actions.clear();
+			}
+			for (Runnable action : actions) {
+				action.run();
+			}
+		}
+
+		boolean await() {
+			try {
+				done.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+			return canContinue;
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package software.rsquared.restapi.exceptions;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Unchecked exception thrown by the iterator of the {@link software.rsquared.restapi.PagedRequest} when page couldn't be loaded
+ *
+ * @author Rafal Zajfert
+ */
+public class PageException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public PageException(@NonNull RequestException cause) {
+		super(cause.getMessage(), cause);
+	}
+
+	/**
+	 * Returns exception of the page request
+	 */
+	@NonNull
+	@Override
+	public synchronized RequestException getCause() {
+		return (RequestException) super.getCause();
+	}
+}
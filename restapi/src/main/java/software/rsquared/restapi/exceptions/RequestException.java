@@ -83,6 +83,20 @@ public class RequestException extends ExecutionException {
 	 */
 	public static final int INTERRUPTED = -2;
 
+	/**
+	 * Request was not sent because circuit breaker stopped calls to the failing host
+	 *
+	 * @see software.rsquared.restapi.CircuitBreaker
+	 */
+	public static final int CIRCUIT_OPEN = -3;
+
+	/**
+	 * Request was not sent because it would wait too long for the client side rate limiter
+	 *
+	 * @see software.rsquared.restapi.RateLimiter
+	 */
+	public static final int RATE_LIMITED = -4;
+
 	private final int responseCode;
 
 	private final String name;
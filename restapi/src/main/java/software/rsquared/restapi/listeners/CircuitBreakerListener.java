@@ -0,0 +1,20 @@
+package software.rsquared.restapi.listeners;
+
+import android.support.annotation.NonNull;
+
+import software.rsquared.restapi.CircuitBreaker;
+
+/**
+ * Listener of the {@link CircuitBreaker} state changes
+ *
+ * @author Rafal Zajfert
+ */
+public interface CircuitBreakerListener {
+
+	/**
+	 * Invoked when state of the circuit changed
+	 *
+	 * @param key host or host and endpoint template of the circuit
+	 */
+	void onStateChanged(@NonNull String key, @CircuitBreaker.State int from, @CircuitBreaker.State int to);
+}
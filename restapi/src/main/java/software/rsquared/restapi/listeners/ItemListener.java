@@ -0,0 +1,17 @@
+package software.rsquared.restapi.listeners;
+
+import java.io.IOException;
+
+/**
+ * Listener of the items read one by one from the response
+ *
+ * @author Rafal Zajfert
+ * @see software.rsquared.restapi.serialization.Deserializer#readItems(Class, okhttp3.ResponseBody, ItemListener)
+ */
+public interface ItemListener<T> {
+
+	/**
+	 * Invoked when next item was read
+	 */
+	void onItem(T item) throws IOException;
+}
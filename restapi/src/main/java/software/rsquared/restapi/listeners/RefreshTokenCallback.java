@@ -0,0 +1,19 @@
+package software.rsquared.restapi.listeners;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Callback of the asynchronous token refresh
+ *
+ * @author Rafal Zajfert
+ * @see software.rsquared.restapi.RestAuthorizationService#refreshToken(RefreshTokenCallback)
+ */
+public interface RefreshTokenCallback {
+
+	/**
+	 * Called when new token was saved and {@link software.rsquared.restapi.RestAuthorizationService#isTokenValid()} returns true
+	 */
+	void onSuccess();
+
+	void onFailed(@NonNull Exception e);
+}
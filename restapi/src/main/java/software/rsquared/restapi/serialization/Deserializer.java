@@ -1,7 +1,12 @@
 package software.rsquared.restapi.serialization;
 
+import android.support.annotation.NonNull;
+
 import java.io.IOException;
 
+import okhttp3.ResponseBody;
+import software.rsquared.restapi.listeners.ItemListener;
+
 /**
  * TODO: Documentation
  *
@@ -10,4 +15,31 @@ import java.io.IOException;
 public interface Deserializer {
 
 	<T> T read(Class<?> requestClass, String content) throws IOException;
+
+	/**
+	 * Reads response directly from the body. Default implementation reads whole body to the String and calls {@link #read(Class, String)},
+	 * implementations should override this method to parse the body stream without buffering it.
+	 */
+	default <T> T read(Class<?> requestClass, @NonNull ResponseBody body) throws IOException {
+		return read(requestClass, body.string());
+	}
+
+	/**
+	 * Reads items of the collection (e.g. top-level json array or newline delimited json) one by one from the body stream
+	 * and passes them to the listener, so the whole collection is never kept in the memory. Type of the items is declared
+	 * by the request class the same way as the response type in {@link #read(Class, String)}.
+	 * Deserializers which implement this method must also override {@link #isReadingItemsSupported()}.
+	 * Default implementation throws {@link UnsupportedOperationException}
+	 */
+	default <T> void readItems(Class<?> requestClass, @NonNull ResponseBody body, @NonNull ItemListener<T> listener) throws IOException {
+		throw new UnsupportedOperationException(getClass().getSimpleName() + " doesn't support reading items from the stream");
+	}
+
+	/**
+	 * Returns true if this deserializer implements {@link #readItems(Class, ResponseBody, ItemListener)}.
+	 * Default implementation returns false
+	 */
+	default boolean isReadingItemsSupported() {
+		return false;
+	}
 }
@@ -1,7 +1,10 @@
 package software.rsquared.restapi.serialization;
 
+import android.support.annotation.NonNull;
+
 import java.io.IOException;
 
+import okhttp3.ResponseBody;
 import software.rsquared.restapi.exceptions.RequestException;
 
 /**
@@ -12,4 +15,12 @@ import software.rsquared.restapi.exceptions.RequestException;
 public interface ErrorDeserializer {
 
 	RequestException read(int responseCode, String content) throws IOException;
+
+	/**
+	 * Reads error directly from the response body. Default implementation reads whole body to the String and calls {@link #read(int, String)},
+	 * implementations should override this method to parse the body stream without buffering it.
+	 */
+	default RequestException read(int responseCode, @NonNull ResponseBody body) throws IOException {
+		return read(responseCode, body.string());
+	}
 }
@@ -0,0 +1,285 @@
+package software.rsquared.restapi.serialization;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.base.GeneratorBase;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
+import software.rsquared.restapi.FileParameter;
+import software.rsquared.restapi.Parameter;
+
+/**
+ * Generator that writes serialized object directly to the list of the form {@link Parameter parameters}.
+ * Nested values are named like {@code name[field][0]}, the key is built in one buffer that is truncated when the
+ * generator leaves the array or object. {@link File Files} are added as {@link FileParameter}, other values are converted
+ * to text the same way as by the {@link com.fasterxml.jackson.databind.JsonNode#asText()}
+ *
+ * @author Rafal Zajfert
+ */
+class FormParameterGenerator extends GeneratorBase {
+
+	private final List<Parameter> parameters;
+	private final boolean named;
+	private final StringBuilder key = new StringBuilder();
+
+	private int depth;
+	private int[] keyLengths = new int[8];
+	private int[] indexes = new int[8];
+	private boolean[] arrays = new boolean[8];
+	private String fieldName;
+
+	FormParameterGenerator(@NonNull List<Parameter> parameters, @Nullable String name, @NonNull ObjectCodec codec) {
+		super(0, codec);
+		this.parameters = parameters;
+		this.named = name != null;
+		if (name != null) {
+			key.append(name);
+		}
+	}
+
+	//region Structure
+	@Override
+	public void writeStartArray() throws IOException {
+		startContainer(true);
+		_writeContext = _writeContext.createChildArrayContext();
+	}
+
+	@Override
+	public void writeEndArray() throws IOException {
+		endContainer();
+	}
+
+	@Override
+	public void writeStartObject() throws IOException {
+		startContainer(false);
+		_writeContext = _writeContext.createChildObjectContext();
+	}
+
+	@Override
+	public void writeEndObject() throws IOException {
+		endContainer();
+	}
+
+	@Override
+	public void writeFieldName(String name) throws IOException {
+		_writeContext.writeFieldName(name);
+		fieldName = name;
+	}
+
+	private void startContainer(boolean array) {
+		_verifyValueWrite("start container");
+		updateKey();
+		if (depth == keyLengths.length) {
+			keyLengths = Arrays.copyOf(keyLengths, depth * 2);
+			indexes = Arrays.copyOf(indexes, depth * 2);
+			arrays = Arrays.copyOf(arrays, depth * 2);
+		}
+		keyLengths[depth] = key.length();
+		indexes[depth] = 0;
+		arrays[depth] = array;
+		depth++;
+	}
+
+	private void endContainer() {
+		_writeContext = _writeContext.clearAndGetParent();
+		depth--;
+		key.setLength(keyLengths[depth]);
+	}
+
+	/**
+	 * Sets key of the next value
+	 */
+	private void updateKey() {
+		if (depth == 0) {
+			return;
+		}
+		int parent = depth - 1;
+		key.setLength(keyLengths[parent]);
+		if (arrays[parent]) {
+			key.append('[').append(indexes[parent]++).append(']');
+		} else if (parent == 0 && !named) {
+			key.append(fieldName);
+		} else {
+			key.append('[').append(fieldName).append(']');
+		}
+	}
+	//endregion
+
+	//region Values
+	private void writeValue(@NonNull String value) {
+		_verifyValueWrite("write value");
+		updateKey();
+		parameters.add(new Parameter(currentKey(), value));
+	}
+
+	@Nullable
+	private String currentKey() {
+		return depth == 0 && !named ? null : key.toString();
+	}
+
+	@Override
+	public void writeNull() throws IOException {
+		if (depth > 0 && arrays[depth - 1]) {
+			// null array items are skipped but they keep their index
+			_verifyValueWrite("write null");
+			indexes[depth - 1]++;
+		} else {
+			writeValue("null");
+		}
+	}
+
+	@Override
+	public void writeString(String text) throws IOException {
+		if (text == null) {
+			writeNull();
+		} else {
+			writeValue(text);
+		}
+	}
+
+	@Override
+	public void writeString(char[] text, int offset, int len) throws IOException {
+		writeValue(new String(text, offset, len));
+	}
+
+	@Override
+	public void writeRawUTF8String(byte[] text, int offset, int length) throws IOException {
+		writeValue(new String(text, offset, length, "UTF-8"));
+	}
+
+	@Override
+	public void writeUTF8String(byte[] text, int offset, int length) throws IOException {
+		writeValue(new String(text, offset, length, "UTF-8"));
+	}
+
+	@Override
+	public void writeBinary(Base64Variant variant, byte[] data, int offset, int len) throws IOException {
+		writeValue(Base64Variants.getDefaultVariant().encode(Arrays.copyOfRange(data, offset, offset + len), false));
+	}
+
+	@Override
+	public void writeNumber(int value) throws IOException {
+		writeValue(String.valueOf(value));
+	}
+
+	@Override
+	public void writeNumber(long value) throws IOException {
+		writeValue(String.valueOf(value));
+	}
+
+	@Override
+	public void writeNumber(BigInteger value) throws IOException {
+		if (value == null) {
+			writeNull();
+		} else {
+			writeValue(value.toString());
+		}
+	}
+
+	@Override
+	public void writeNumber(double value) throws IOException {
+		writeValue(String.valueOf(value));
+	}
+
+	@Override
+	public void writeNumber(float value) throws IOException {
+		writeValue(String.valueOf(value));
+	}
+
+	@Override
+	public void writeNumber(BigDecimal value) throws IOException {
+		if (value == null) {
+			writeNull();
+		} else if (value.compareTo(BigDecimal.ZERO) == 0) {
+			writeValue("0");
+		} else {
+			writeValue(value.stripTrailingZeros().toString());
+		}
+	}
+
+	@Override
+	public void writeNumber(String encodedValue) throws IOException {
+		writeString(encodedValue);
+	}
+
+	@Override
+	public void writeBoolean(boolean state) throws IOException {
+		writeValue(state ? "true" : "false");
+	}
+
+	@Override
+	public void writeEmbeddedObject(Object object) throws IOException {
+		if (object == null) {
+			writeNull();
+		} else if (object instanceof File) {
+			_verifyValueWrite("write file");
+			updateKey();
+			parameters.add(new FileParameter(currentKey(), (File) object));
+		} else if (object instanceof byte[]) {
+			writeBinary((byte[]) object);
+		} else {
+			writeValue(object.toString());
+		}
+	}
+
+	@Override
+	public void writeRawValue(String text) throws IOException {
+		writeString(text);
+	}
+
+	@Override
+	public void writeRawValue(String text, int offset, int len) throws IOException {
+		writeString(text.substring(offset, offset + len));
+	}
+
+	@Override
+	public void writeRawValue(char[] text, int offset, int len) throws IOException {
+		writeString(text, offset, len);
+	}
+	//endregion
+
+	//region Unsupported
+	@Override
+	public void writeRaw(String text) throws IOException {
+		_reportUnsupportedOperation();
+	}
+
+	@Override
+	public void writeRaw(String text, int offset, int len) throws IOException {
+		_reportUnsupportedOperation();
+	}
+
+	@Override
+	public void writeRaw(char[] text, int offset, int len) throws IOException {
+		_reportUnsupportedOperation();
+	}
+
+	@Override
+	public void writeRaw(char c) throws IOException {
+		_reportUnsupportedOperation();
+	}
+	//endregion
+
+	@Override
+	public void flush() {
+	}
+
+	@Override
+	protected void _releaseBuffers() {
+	}
+
+	@Override
+	protected void _verifyValueWrite(String typeMsg) {
+		_writeContext.writeValue();
+	}
+}
@@ -7,23 +7,33 @@ import android.text.TextUtils;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
 import software.rsquared.restapi.exceptions.DeserializationException;
+import software.rsquared.restapi.listeners.ItemListener;
 
 /**
  * Default implementation of response {@link Deserializer deserializer}
@@ -34,6 +44,8 @@ public class JsonDeserializer implements Deserializer {
 
 	protected final ObjectMapper objectMapper = new ObjectMapper();
 	protected final Config config;
+	private final Map<Class<?>, CachedDescription> responseDescriptions = new ConcurrentHashMap<>();
+	private final AtomicLong responseDescriptionUses = new AtomicLong();
 
 	public JsonDeserializer() {
 		this(new Config());
@@ -125,33 +137,179 @@ public class JsonDeserializer implements Deserializer {
 
 	@Override
 	public <T> T read(Class<?> requestClass, String content) throws IOException {
+		return readObject(getResponseDescription(requestClass), content);
+	}
+
+	/**
+	 * Reads response directly from the body stream, body is never buffered as a whole
+	 */
+	@Override
+	public <T> T read(Class<?> requestClass, @NonNull ResponseBody body) throws IOException {
+		return readObject(getResponseDescription(requestClass), createParser(objectMapper, body));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isReadingItemsSupported() {
+		return true;
+	}
+
+	/**
+	 * Reads items of the top-level json array or json values separated by the whitespaces (e.g. newline delimited json)
+	 * directly from the body stream, only one item is kept in the memory at a time
+	 */
+	@Override
+	public <T> void readItems(Class<?> requestClass, @NonNull ResponseBody body, @NonNull ItemListener<T> listener) throws IOException {
+		ObjectReader reader = getReader(getResponseDescription(requestClass));
+		JsonParser parser = createParser(objectMapper, body);
+		try {
+			JsonToken token = parser.nextToken();
+			boolean array = token == JsonToken.START_ARRAY;
+			if (array) {
+				token = parser.nextToken();
+			}
+			while (token != null && !(array && token == JsonToken.END_ARRAY)) {
+				listener.onItem(reader.readValue(parser));
+				token = parser.nextToken();
+			}
+		} finally {
+			parser.close();
+		}
+	}
+
+	/**
+	 * Reads response from the stream of the json encoded in UTF-8, UTF-16 or UTF-32
+	 */
+	public <T> T read(Class<?> requestClass, @NonNull InputStream content) throws IOException {
+		return readObject(getResponseDescription(requestClass), objectMapper.getFactory().createParser(content));
+	}
+
+	/**
+	 * Returns description of the response type declared by the request class. Descriptions are cached per request class
+	 * (up to {@link Config#setResponseTypeCacheSize(int)} classes) together with the {@link ObjectReader} built for them.
+	 * When cache is full the least recently used description is removed
+	 */
+	@NonNull
+	protected TypeDescription getResponseDescription(Class<?> requestClass) {
+		CachedDescription cached = responseDescriptions.get(requestClass);
+		if (cached != null) {
+			cached.lastUse = responseDescriptionUses.incrementAndGet();
+			return cached.description;
+		}
+		TypeDescription description = resolveResponseDescription(requestClass);
+		if (config.responseTypeCacheSize > 0) {
+			// only misses are locked, hits read the concurrent map
+			synchronized (responseDescriptions) {
+				responseDescriptions.put(requestClass, new CachedDescription(description, responseDescriptionUses.incrementAndGet()));
+				trimResponseDescriptions(config.responseTypeCacheSize);
+			}
+		}
+		return description;
+	}
+
+	private void trimResponseDescriptions(int maxSize) {
+		while (responseDescriptions.size() > maxSize) {
+			Class<?> leastRecentlyUsed = null;
+			long lastUse = Long.MAX_VALUE;
+			for (Map.Entry<Class<?>, CachedDescription> entry : responseDescriptions.entrySet()) {
+				if (entry.getValue().lastUse < lastUse) {
+					leastRecentlyUsed = entry.getKey();
+					lastUse = entry.getValue().lastUse;
+				}
+			}
+			responseDescriptions.remove(leastRecentlyUsed);
+		}
+	}
+
+	/**
+	 * Resolves description of the response type from the generic superclass of the request class
+	 */
+	@NonNull
+	protected TypeDescription resolveResponseDescription(Class<?> requestClass) {
 		Type superclass = requestClass.getGenericSuperclass();
 		while (!(superclass instanceof ParameterizedType) && requestClass.getSuperclass() != null) {
 			requestClass = requestClass.getSuperclass();
 			superclass = requestClass.getGenericSuperclass();
 		}
 		if (superclass != null && superclass instanceof ParameterizedType) {
-			return readObject(getParameterClasses((ParameterizedType) superclass).get(0), content);
+			return getParameterClasses((ParameterizedType) superclass).get(0);
 		} else {
 			throw new DeserializationException("Unknown parameter response class for " + requestClass.getSimpleName());
 		}
-
 	}
 
 	protected <T> T readObject(TypeDescription description, String content) throws IOException {
 		if (TextUtils.isEmpty(content)) {
 			content = getEmptyJson(description.type);
 		}
+		return getReader(description).readValue(content);
+	}
 
+	/**
+	 * Reads object from the parser and closes it. Empty content is treated the same way as in {@link #readObject(TypeDescription, String)}
+	 */
+	protected <T> T readObject(TypeDescription description, JsonParser parser) throws IOException {
+		try {
+			if (parser.nextToken() == null) {
+				return readObject(description, (String) null);
+			}
+			return getReader(description).readValue(parser);
+		} finally {
+			parser.close();
+		}
+	}
+
+	/**
+	 * Returns reader for the given type, reader is created once and stored in the description
+	 */
+	@NonNull
+	protected ObjectReader getReader(TypeDescription description) {
+		ObjectReader reader = description.reader;
+		if (reader == null) {
+			reader = createReader(description);
+			description.reader = reader;
+		}
+		return reader;
+	}
+
+	@NonNull
+	protected ObjectReader createReader(TypeDescription description) {
 		if (description.parameters != null) {
-			return objectMapper.readerFor(getJavaType(description)).readValue(content);
+			return objectMapper.readerFor(getJavaType(description));
+		} else {
+			return objectMapper.readerFor(description.type);
+		}
+	}
+
+	/**
+	 * Creates parser for the response body. Json encoded in UTF-8, UTF-16 or UTF-32 is parsed directly from the bytes,
+	 * other charsets declared in the Content-Type header are decoded by the body's reader
+	 */
+	@NonNull
+	static JsonParser createParser(@NonNull ObjectMapper objectMapper, @NonNull ResponseBody body) throws IOException {
+		MediaType contentType = body.contentType();
+		Charset charset = contentType == null ? null : contentType.charset();
+		if (charset == null || charset.name().toUpperCase(Locale.US).startsWith("UTF")) {
+			return objectMapper.getFactory().createParser(body.byteStream());
 		} else {
-			return objectMapper.readerFor(description.type).readValue(content);
+			return objectMapper.getFactory().createParser(body.charStream());
 		}
 	}
 
 	@Nullable
 	protected JavaType getJavaType(TypeDescription description) {
+		JavaType javaType = description.javaType;
+		if (javaType == null) {
+			javaType = createJavaType(description);
+			description.javaType = javaType;
+		}
+		return javaType;
+	}
+
+	@Nullable
+	protected JavaType createJavaType(TypeDescription description) {
 		if (description.parameters != null) {
 			if (Collection.class.isAssignableFrom(description.type)) {
 				//noinspection unchecked
@@ -199,6 +357,7 @@ public class JsonDeserializer implements Deserializer {
 
 	public static class Config {
 		private boolean timeInSeconds;
+		private int responseTypeCacheSize = 256;
 
 		/**
 		 * Set true if time should be deserialized from unix time seconds. This works with {@link Date} and {@link Calendar}
@@ -207,11 +366,35 @@ public class JsonDeserializer implements Deserializer {
 			this.timeInSeconds = timeInSeconds;
 			return this;
 		}
+
+		/**
+		 * Set maximum number of the request classes for which resolved response type and reader are cached, 0 disables the cache.
+		 * When the limit is reached one of the cached classes is evicted (default: 256)
+		 */
+		public Config setResponseTypeCacheSize(int responseTypeCacheSize) {
+			if (responseTypeCacheSize < 0) {
+				throw new IllegalArgumentException("Cache size cannot be negative");
+			}
+			this.responseTypeCacheSize = responseTypeCacheSize;
+			return this;
+		}
+	}
+
+	private static class CachedDescription {
+		final TypeDescription description;
+		volatile long lastUse;
+
+		CachedDescription(TypeDescription description, long lastUse) {
+			this.description = description;
+			this.lastUse = lastUse;
+		}
 	}
 
 	protected class TypeDescription {
 		Class<?> type;
 		List<TypeDescription> parameters;
+		volatile JavaType javaType;
+		volatile ObjectReader reader;
 
 		public TypeDescription(Class<?> type) {
 			this.type = type;
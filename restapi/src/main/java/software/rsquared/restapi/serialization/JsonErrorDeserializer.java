@@ -2,12 +2,14 @@ package software.rsquared.restapi.serialization;
 
 import android.support.annotation.NonNull;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 
 import java.io.IOException;
 
+import okhttp3.ResponseBody;
 import software.rsquared.restapi.exceptions.DefaultErrorResponse;
 import software.rsquared.restapi.exceptions.RequestException;
 
@@ -35,6 +37,26 @@ public class JsonErrorDeserializer implements ErrorDeserializer {
 	@Override
 	public RequestException read(int responseCode, String content) throws IOException {
 		DefaultErrorResponse value = objectMapper.readerFor(config.errorClass).readValue(content);
+		return createException(responseCode, value);
+	}
+
+	/**
+	 * Reads error directly from the body stream
+	 */
+	@Override
+	public RequestException read(int responseCode, @NonNull ResponseBody body) throws IOException {
+		DefaultErrorResponse value;
+		JsonParser parser = JsonDeserializer.createParser(objectMapper, body);
+		try {
+			value = objectMapper.readerFor(config.errorClass).readValue(parser);
+		} finally {
+			parser.close();
+		}
+		return createException(responseCode, value);
+	}
+
+	@NonNull
+	protected RequestException createException(int responseCode, DefaultErrorResponse value) {
 		return new RequestException(responseCode, value.getName(), value.getMessage(), value.getErrorCode(), value.getErrors());
 	}
 
@@ -2,6 +2,8 @@ package software.rsquared.restapi.serialization;
 
 import android.support.annotation.NonNull;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 import software.rsquared.restapi.Parameter;
@@ -11,4 +13,11 @@ import software.rsquared.restapi.Parameter;
  */
 public interface JsonSerializer extends Serializer {
 	String toJsonString(@NonNull List<Parameter> parameters);
+
+	/**
+	 * Writes json encoded in UTF-8 to the given stream. Stream is not closed
+	 */
+	default void writeJson(@NonNull List<Parameter> parameters, @NonNull OutputStream out) throws IOException {
+		out.write(toJsonString(parameters).getBytes("UTF-8"));
+	}
 }
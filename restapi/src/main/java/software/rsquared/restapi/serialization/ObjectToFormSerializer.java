@@ -10,9 +10,10 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 
@@ -20,9 +21,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 
 import software.rsquared.restapi.Parameter;
 import software.rsquared.restapi.RestObject;
@@ -33,6 +32,7 @@ import software.rsquared.restapi.RestObject;
 public class ObjectToFormSerializer implements Serializer {
 	private final ObjectMapper objectMapper = new ObjectMapper();
 	private final Config config;
+	private final ObjectWriter objectWriter;
 
 	public ObjectToFormSerializer() {
 		this(new Config());
@@ -50,6 +50,7 @@ public class ObjectToFormSerializer implements Serializer {
 		if (config.disableAutoDetect) {
 			objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
 		}
+		objectWriter = objectMapper.writer().without(SerializationFeature.WRAP_ROOT_VALUE);
 	}
 
 	@CallSuper
@@ -57,7 +58,7 @@ public class ObjectToFormSerializer implements Serializer {
 		module.addSerializer(File.class, new com.fasterxml.jackson.databind.JsonSerializer<File>() {
 			@Override
 			public void serialize(File value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
-				gen.writeString("_file{" + value.getAbsolutePath() + "}");
+				gen.writeEmbeddedObject(value);
 			}
 		});
 
@@ -124,29 +125,11 @@ public class ObjectToFormSerializer implements Serializer {
 	@Override
 	public <T> void serialize(@NonNull List<Parameter> parameters, @Nullable String name, T object) {
 		if (object != null) {
-			JsonNode jsonNode = objectMapper.valueToTree(object);
-			addParameter(name, jsonNode, parameters);
-		}
-	}
-
-	private void addParameter(String name, JsonNode jsonNode, List<Parameter> parameters) {
-		if (jsonNode.isArray()) {
-			for (int i = 0; i < jsonNode.size(); i++) {
-				JsonNode child = jsonNode.get(i);
-				if (!child.isNull()) {
-					String key = name == null ? "[" + i + "]" : name + "[" + i + "]";
-					addParameter(key, child, parameters);
-				}
-			}
-		} else if (jsonNode.isObject()) {
-			Iterator<Map.Entry<String, JsonNode>> fields = jsonNode.fields();
-			while (fields.hasNext()) {
-				Map.Entry<String, JsonNode> entry = fields.next();
-				String key = name == null ? entry.getKey() : name + "[" + entry.getKey() + "]";
-				addParameter(key, entry.getValue(), parameters);
+			try {
+				objectWriter.writeValue(new FormParameterGenerator(parameters, name, objectMapper), object);
+			} catch (IOException e) {
+				throw new IllegalArgumentException(e.getMessage(), e);
 			}
-		} else {
-			parameters.add(new Parameter(name, jsonNode.asText()));
 		}
 	}
 
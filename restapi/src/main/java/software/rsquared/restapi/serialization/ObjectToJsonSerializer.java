@@ -7,6 +7,7 @@ import android.support.annotation.Nullable;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -18,6 +19,7 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Iterator;
@@ -172,6 +174,17 @@ public class ObjectToJsonSerializer implements JsonSerializer {
 		}
 	}
 
+	@Override
+	public void writeJson(@NonNull List<Parameter> parameters, @NonNull OutputStream out) throws IOException {
+		if (parameters.isEmpty()) {
+			return;
+		}
+		JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+		generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		objectMapper.writeTree(generator, (ObjectNode) parameters.get(0).getValue());
+		generator.close();
+	}
+
 	private <T> String getObjectName(T object) {
 		RestObject restObject = object.getClass().getAnnotation(RestObject.class);
 		if (!isEmpty(restObject.value())) {
@@ -0,0 +1,230 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Rafal Zajfert
+ */
+public class CacheInterceptorTest {
+
+    private CacheInterceptor mInterceptor;
+
+    @Before
+    public void setUp() {
+        RestApi.setConfiguration(new RestApiConfiguration());
+        mInterceptor = new CacheInterceptor();
+    }
+
+    @Test
+    public void usesStaleResponseWhenServerIsUnreachable() throws Exception {
+        FakeChain chain = new FakeChain(request(CachePolicy.STALE_IF_ERROR));
+        chain.responses.add(new IOException("unreachable"));
+        chain.responses.add(cachedResponse(chain.request));
+
+        Response response = mInterceptor.intercept(chain);
+
+        assertNotNull(response.cacheResponse());
+        assertEquals(2, chain.requests.size());
+        assertTrue(chain.requests.get(1).cacheControl().onlyIfCached());
+    }
+
+    @Test
+    public void usesStaleResponseWhenServerFailed() throws Exception {
+        FakeChain chain = new FakeChain(request(CachePolicy.STALE_IF_ERROR));
+        chain.responses.add(networkResponse(chain.request, 503));
+        chain.responses.add(cachedResponse(chain.request));
+
+        Response response = mInterceptor.intercept(chain);
+
+        assertEquals(200, response.code());
+        assertNotNull(response.cacheResponse());
+    }
+
+    @Test
+    public void rethrowsErrorWhenResponseIsNotCached() throws Exception {
+        IOException error = new IOException("unreachable");
+        FakeChain chain = new FakeChain(request(CachePolicy.STALE_IF_ERROR));
+        chain.responses.add(error);
+        chain.responses.add(networkResponse(chain.request, 504));
+
+        try {
+            mInterceptor.intercept(chain);
+            fail();
+        } catch (IOException e) {
+            assertSame(error, e);
+        }
+    }
+
+    @Test
+    public void returnsServerErrorWhenResponseIsNotCached() throws Exception {
+        FakeChain chain = new FakeChain(request(CachePolicy.STALE_IF_ERROR));
+        chain.responses.add(networkResponse(chain.request, 500));
+        chain.responses.add(networkResponse(chain.request, 504));
+
+        assertEquals(500, mInterceptor.intercept(chain).code());
+    }
+
+    @Test
+    public void doesNotUseCacheAfterErrorWithDefaultPolicy() throws Exception {
+        FakeChain chain = new FakeChain(request(CachePolicy.DEFAULT));
+        chain.responses.add(networkResponse(chain.request, 503));
+        chain.responses.add(cachedResponse(chain.request));
+
+        assertEquals(503, mInterceptor.intercept(chain).code());
+        assertEquals(1, chain.requests.size());
+    }
+
+    @Test
+    public void networkOnlyPolicyBypassesCache() {
+        PolicyRequest request = new PolicyRequest(CachePolicy.NETWORK_ONLY);
+        request.setMaxStale(TimeUnit.MINUTES.toMillis(1));
+        assertTrue(request.getCacheControl().noCache());
+    }
+
+    @Test
+    public void cacheFirstPolicyAcceptsStaleResponse() {
+        assertEquals(Integer.MAX_VALUE, new PolicyRequest(CachePolicy.CACHE_FIRST).getCacheControl().maxStaleSeconds());
+    }
+
+    @Test
+    public void defaultPolicyUsesCacheControlHeaders() {
+        PolicyRequest request = new PolicyRequest(CachePolicy.DEFAULT);
+        assertNull(request.getCacheControl());
+        request.setMaxStale(TimeUnit.MINUTES.toMillis(2));
+        assertEquals(120, request.getCacheControl().maxStaleSeconds());
+        assertFalse(request.getCacheControl().noCache());
+    }
+
+    private static okhttp3.Request request(@CachePolicy int cachePolicy) {
+        return new okhttp3.Request.Builder()
+                .url("http://api.host.com/items")
+                .tag(GetRequest.class, new PolicyRequest(cachePolicy))
+                .build();
+    }
+
+    private static Response networkResponse(okhttp3.Request request, int code) {
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("status " + code)
+                .body(ResponseBody.create(MediaType.parse("application/json"), "{}"))
+                .build();
+    }
+
+    private static Response cachedResponse(okhttp3.Request request) {
+        Response cached = new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .build();
+        return networkResponse(request, 200).newBuilder().cacheResponse(cached).build();
+    }
+
+    private static class PolicyRequest extends GetRequest<String> {
+        PolicyRequest(@CachePolicy int cachePolicy) {
+            setCachePolicy(cachePolicy);
+        }
+
+        @Override
+        protected void prepareRequest() {
+        }
+    }
+
+    /**
+     * Chain which returns prepared responses (or throws prepared exceptions) in order
+     */
+    private static class FakeChain implements Interceptor.Chain {
+        private final okhttp3.Request request;
+        private final Deque<Object> responses = new ArrayDeque<>();
+        private final List<okhttp3.Request> requests = new ArrayList<>();
+
+        FakeChain(okhttp3.Request request) {
+            this.request = request;
+        }
+
+        @Override
+        public okhttp3.Request request() {
+            return request;
+        }
+
+        @Override
+        public Response proceed(@NonNull okhttp3.Request request) throws IOException {
+            requests.add(request);
+            Object response = responses.poll();
+            if (response instanceof IOException) {
+                throw (IOException) response;
+            }
+            return (Response) response;
+        }
+
+        @Nullable
+        @Override
+        public Connection connection() {
+            return null;
+        }
+
+        @Override
+        public Call call() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int connectTimeoutMillis() {
+            return 0;
+        }
+
+        @Override
+        public Interceptor.Chain withConnectTimeout(int timeout, TimeUnit unit) {
+            return this;
+        }
+
+        @Override
+        public int readTimeoutMillis() {
+            return 0;
+        }
+
+        @Override
+        public Interceptor.Chain withReadTimeout(int timeout, TimeUnit unit) {
+            return this;
+        }
+
+        @Override
+        public int writeTimeoutMillis() {
+            return 0;
+        }
+
+        @Override
+        public Interceptor.Chain withWriteTimeout(int timeout, TimeUnit unit) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package software.rsquared.restapi;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import okhttp3.HttpUrl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Rafal Zajfert
+ */
+public class CircuitBreakerTest {
+
+    @Test
+    public void opensWhenFailureRateExceeded() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker().setWindowSize(10).setMinCalls(4).setFailureRateThreshold(0.5f);
+        breaker.onResult("host", false, 10);
+        breaker.onResult("host", true, 10);
+        breaker.onResult("host", false, 10);
+        assertEquals(CircuitBreaker.CLOSED, breaker.getState("host"));
+        breaker.onResult("host", true, 10);
+        assertEquals(CircuitBreaker.OPEN, breaker.getState("host"));
+        assertFalse(breaker.tryAcquire("host"));
+        assertTrue(breaker.tryAcquire("other"));
+    }
+
+    @Test
+    public void opensWhenSlowCallRateExceeded() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker().setMinCalls(2).setSlowCallDuration(100).setSlowCallRateThreshold(0.5f);
+        breaker.onResult("host", false, 10);
+        breaker.onResult("host", false, 200);
+        assertEquals(CircuitBreaker.OPEN, breaker.getState("host"));
+    }
+
+    @Test
+    public void closesAfterSuccessfulProbes() throws Exception {
+        List<String> changes = new ArrayList<>();
+        CircuitBreaker breaker = new CircuitBreaker().setMinCalls(1).setOpenDuration(100).setHalfOpenCalls(2)
+                .setListener((key, from, to) -> changes.add(key + ":" + from + "->" + to));
+        breaker.onResult("host", true, 10);
+        Thread.sleep(150);
+        assertTrue(breaker.tryAcquire("host"));
+        assertTrue(breaker.tryAcquire("host"));
+        assertFalse(breaker.tryAcquire("host"));
+        assertEquals(CircuitBreaker.HALF_OPEN, breaker.getState("host"));
+        breaker.onResult("host", false, 10);
+        breaker.onResult("host", false, 10);
+        assertEquals(CircuitBreaker.CLOSED, breaker.getState("host"));
+        assertEquals(Arrays.asList("host:0->1", "host:1->2", "host:2->0"), changes);
+    }
+
+    @Test
+    public void reopensAfterFailedProbe() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker().setMinCalls(1).setOpenDuration(100);
+        breaker.onResult("host", true, 10);
+        Thread.sleep(150);
+        assertTrue(breaker.tryAcquire("host"));
+        breaker.onResult("host", true, 10);
+        assertEquals(CircuitBreaker.OPEN, breaker.getState("host"));
+        assertFalse(breaker.tryAcquire("host"));
+    }
+
+    @Test
+    public void keyContainsEndpointTemplate() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker().addEndpoint("/users/*/posts");
+        assertEquals("example.com/users/*/posts", breaker.getKey(HttpUrl.parse("http://example.com/users/12/posts?page=2")));
+        assertEquals("example.com", breaker.getKey(HttpUrl.parse("http://example.com/users/12")));
+    }
+}
@@ -0,0 +1,54 @@
+package software.rsquared.restapi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Rafal Zajfert
+ */
+public class ConcurrencyLimitTest {
+
+    @Test
+    public void growsWhenLimitIsUsed() throws Exception {
+        ConcurrencyLimit limit = new ConcurrencyLimit(4, 6);
+        for (int i = 0; i < 5; i++) {
+            limit.onSample(50, false, 4);
+        }
+        assertEquals(5, limit.getLimit());
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(50, false, 6);
+        }
+        assertEquals(6, limit.getLimit());
+    }
+
+    @Test
+    public void doesNotGrowWhenLimitIsNotUsed() throws Exception {
+        ConcurrencyLimit limit = new ConcurrencyLimit(4, 8);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(50, false, 1);
+        }
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    public void decreasesOnDrop() throws Exception {
+        ConcurrencyLimit limit = new ConcurrencyLimit(8, 8);
+        limit.onSample(50, true, 8);
+        assertEquals(7, limit.getLimit());
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(0, true, 8);
+        }
+        assertEquals(1, limit.getLimit());
+    }
+
+    @Test
+    public void decreasesWhenLatencyGrows() throws Exception {
+        ConcurrencyLimit limit = new ConcurrencyLimit(8, 8);
+        limit.onSample(50, false, 8);
+        limit.onSample(90, false, 8);
+        assertEquals(8, limit.getLimit());
+        limit.onSample(200, false, 8);
+        assertEquals(7, limit.getLimit());
+    }
+}
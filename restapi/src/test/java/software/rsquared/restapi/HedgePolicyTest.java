@@ -0,0 +1,50 @@
+package software.rsquared.restapi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Rafal Zajfert
+ */
+public class HedgePolicyTest {
+
+    @Test
+    public void hedgeDelayIsPercentileOfLatencies() throws Exception {
+        HedgePolicy policy = new HedgePolicy().setPercentile(0.9).setMinSamples(10).setMinDelay(0);
+        for (int i = 1; i <= 9; i++) {
+            policy.record("GET host/items", i * 10);
+        }
+        assertEquals(-1, policy.getHedgeDelay("GET host/items"));
+        policy.record("GET host/items", 1000);
+        assertEquals(90, policy.getHedgeDelay("GET host/items"));
+        assertEquals(-1, policy.getHedgeDelay("GET host/users"));
+    }
+
+    @Test
+    public void keepsLastSamples() throws Exception {
+        HedgePolicy policy = new HedgePolicy().setSampleSize(5).setMinSamples(5).setMinDelay(0);
+        for (int i = 0; i < 5; i++) {
+            policy.record("GET host/items", 1000);
+        }
+        for (int i = 0; i < 5; i++) {
+            policy.record("GET host/items", 10);
+        }
+        assertEquals(10, policy.getHedgeDelay("GET host/items"));
+    }
+
+    @Test
+    public void limitsHedgesByBudget() throws Exception {
+        HedgePolicy policy = new HedgePolicy().setBudget(0.5f);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(policy.acquireHedge());
+        }
+        assertFalse(policy.acquireHedge());
+        policy.record("GET host/items", 10);
+        assertFalse(policy.acquireHedge());
+        policy.record("GET host/items", 10);
+        assertTrue(policy.acquireHedge());
+    }
+}
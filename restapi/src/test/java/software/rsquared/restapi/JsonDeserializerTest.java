@@ -1,5 +1,7 @@
 package software.rsquared.restapi;
 
+import android.support.annotation.NonNull;
+
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import org.junit.After;
@@ -7,14 +9,19 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
 import software.rsquared.restapi.serialization.JsonDeserializer;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Rafal Zajfert
@@ -62,6 +69,85 @@ public class JsonDeserializerTest {
         assertNotNull(result);
     }
 
+    @Test
+    public void readFromBody() throws Exception {
+        ResponseBody body = ResponseBody.create(MediaType.parse("application/json"), "[[\"a\",\"b\"],[\"c\",\"d\"]]");
+        List<Set<String>> result = mDeserializer.read(ListRequest.class, body);
+        assertNotNull(result);
+        assertEquals(2, result.size());
+        assertEquals(2, result.get(1).size());
+    }
+
+    @Test
+    public void readEmptyBody() throws Exception {
+        ResponseBody body = ResponseBody.create(MediaType.parse("application/json"), "");
+        List<Set<String>> result = mDeserializer.read(ListRequest.class, body);
+        assertNotNull(result);
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void readBodyWithCharset() throws Exception {
+        ResponseBody body = ResponseBody.create(MediaType.parse("application/json; charset=ISO-8859-2"), "{\"msg\":\"zażółć\", \"bool\":[\"1\"]}");
+        StringObject result = mDeserializer.read(StringObjectRequest.class, body);
+        assertEquals("zażółć", result.mString);
+    }
+
+    @Test
+    public void readWithEvictedResponseType() throws Exception {
+        mDeserializer = new JsonDeserializer(new JsonDeserializer.Config().setResponseTypeCacheSize(1));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(3, new ListRequest().read().size());
+            assertEquals("test string", new StringObjectRequest().read().mString);
+        }
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedResponseType() throws Exception {
+        List<Class<?>> resolved = new ArrayList<>();
+        mDeserializer = new JsonDeserializer(new JsonDeserializer.Config().setResponseTypeCacheSize(2)) {
+            @NonNull
+            @Override
+            protected TypeDescription resolveResponseDescription(Class<?> requestClass) {
+                resolved.add(requestClass);
+                return super.resolveResponseDescription(requestClass);
+            }
+        };
+        new ListRequest().read();
+        new StringObjectRequest().read();
+        new ListRequest().read();
+        new MapMapRequest().read();
+        new ListRequest().read();
+        new StringObjectRequest().read();
+        assertEquals(Arrays.asList(ListRequest.class, StringObjectRequest.class, MapMapRequest.class, StringObjectRequest.class), resolved);
+    }
+
+    @Test
+    public void readItemsOfArray() throws Exception {
+        ResponseBody body = ResponseBody.create(MediaType.parse("application/json"), "[{\"msg\":\"a\"}, {\"msg\":\"b\"}]");
+        List<StringObject> items = new ArrayList<>();
+        mDeserializer.<StringObject>readItems(StringObjectRequest.class, body, items::add);
+        assertEquals(2, items.size());
+        assertEquals("b", items.get(1).mString);
+    }
+
+    @Test
+    public void readItemsOfNewlineDelimitedJson() throws Exception {
+        ResponseBody body = ResponseBody.create(MediaType.parse("application/x-ndjson"), "{\"msg\":\"a\"}\n{\"msg\":\"b\"}\n{\"msg\":\"c\"}\n");
+        List<StringObject> items = new ArrayList<>();
+        mDeserializer.<StringObject>readItems(StringObjectRequest.class, body, items::add);
+        assertEquals(3, items.size());
+        assertEquals("c", items.get(2).mString);
+    }
+
+    @Test
+    public void readItemsOfEmptyBody() throws Exception {
+        ResponseBody body = ResponseBody.create(MediaType.parse("application/json"), "");
+        List<StringObject> items = new ArrayList<>();
+        mDeserializer.<StringObject>readItems(StringObjectRequest.class, body, items::add);
+        assertTrue(items.isEmpty());
+    }
+
     private class ListRequest extends A<List<Set<String>>>{
     }
 
@@ -0,0 +1,75 @@
+package software.rsquared.restapi;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import okio.Buffer;
+import software.rsquared.restapi.serialization.ObjectToJsonSerializer;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Rafal Zajfert
+ */
+public class JsonRequestBodyTest {
+
+    private ObjectToJsonSerializer mSerializer;
+    private List<Parameter> mParameters;
+
+    @Before
+    public void setUp() throws Exception {
+        mSerializer = new ObjectToJsonSerializer();
+        mParameters = new ArrayList<>();
+        mSerializer.serialize(mParameters, "param", "zażółć");
+        mSerializer.serialize(mParameters, "numbers", new int[]{1, 2, 3});
+    }
+
+    @Test
+    public void writeTo() throws Exception {
+        JsonRequestBody body = new JsonRequestBody(mSerializer, mParameters);
+        Buffer first = new Buffer();
+        body.writeTo(first);
+        Buffer second = new Buffer();
+        body.writeTo(second);
+        assertEquals(mSerializer.toJsonString(mParameters), first.readUtf8());
+        assertEquals(mSerializer.toJsonString(mParameters), second.readUtf8());
+    }
+
+    @Test
+    public void preview() throws Exception {
+        JsonRequestBody body = new JsonRequestBody(mSerializer, mParameters);
+        assertEquals(mSerializer.toJsonString(mParameters), body.preview(1024));
+        assertEquals("{\"param\"\n(...)", body.preview(8));
+    }
+
+    @Test
+    public void emptyBody() throws Exception {
+        JsonRequestBody body = new JsonRequestBody(mSerializer, new ArrayList<>());
+        assertEquals(0, body.contentLength());
+        assertEquals("", body.preview(1024));
+    }
+
+    @Test
+    public void smallBodyHasExactLength() throws Exception {
+        JsonRequestBody body = new JsonRequestBody(mSerializer, mParameters);
+        assertEquals(mSerializer.toJsonString(mParameters).getBytes("UTF-8").length, body.contentLength());
+    }
+
+    @Test
+    public void largeBodyIsStreamed() throws Exception {
+        List<Parameter> parameters = new ArrayList<>();
+        char[] chars = new char[(int) JsonRequestBody.MAX_BUFFERED_SIZE];
+        Arrays.fill(chars, 'a');
+        mSerializer.serialize(parameters, "param", new String(chars));
+        JsonRequestBody body = new JsonRequestBody(mSerializer, parameters);
+
+        assertEquals(-1, body.contentLength());
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        assertEquals(mSerializer.toJsonString(parameters), buffer.readUtf8());
+    }
+}
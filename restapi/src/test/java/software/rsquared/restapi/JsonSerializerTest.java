@@ -12,9 +12,12 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.*;
 
@@ -169,6 +172,24 @@ public class JsonSerializerTest {
         assertEquals(parameters.get(1).getValue(), "0");
     }
 
+    @Test
+    public void serializeNumbers() throws Exception {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("decimal", new BigDecimal("1.500"));
+        map.put("double", 0.25d);
+        map.put("float", 0.1f);
+        map.put("empty", null);
+        List<Parameter> parameters = new ArrayList<>();
+        new ObjectToFormSerializer(new ObjectToFormSerializer.Config().setSerializeNullValues(true)).serialize(parameters, null, map);
+        assertEquals(parameters.size(), 4);
+        assertEquals(parameters.get(0).getName(), "decimal");
+        assertEquals(parameters.get(0).getValue(), "1.5");
+        assertEquals(parameters.get(1).getValue(), "0.25");
+        assertEquals(parameters.get(2).getValue(), "0.1");
+        assertEquals(parameters.get(3).getName(), "empty");
+        assertEquals(parameters.get(3).getValue(), "null");
+    }
+
     private static class RequestNoName {
         @JsonProperty("param")
         String param = "test1";
@@ -0,0 +1,74 @@
+package software.rsquared.restapi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Rafal Zajfert
+ */
+public class ObjectCacheTest {
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws Exception {
+        ObjectCache cache = new ObjectCache().setMaxEntries(2);
+        cache.put("a", "A", 60000);
+        cache.put("b", "B", 60000);
+        assertEquals("A", cache.get("a"));
+        cache.put("c", "C", 60000);
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("C", cache.get("c"));
+    }
+
+    @Test
+    public void evictsByWeight() throws Exception {
+        ObjectCache cache = new ObjectCache().setMaxWeight(10).setWeigher((key, value) -> ((String) value).length());
+        cache.put("a", "123456", 60000);
+        cache.put("b", "1234", 60000);
+        cache.put("c", "12", 60000);
+        assertNull(cache.get("a"));
+        assertEquals("1234", cache.get("b"));
+        cache.put("d", "12345678901", 60000);
+        assertNull(cache.get("d"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void expires() throws Exception {
+        ObjectCache cache = new ObjectCache();
+        cache.put("a", "A", 20);
+        cache.put("b", "B", 0);
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+        Thread.sleep(40);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void invalidatesByPrefix() throws Exception {
+        ObjectCache cache = new ObjectCache();
+        cache.put("GET http://example.com/users?page=1", "1", 60000);
+        cache.put("GET http://example.com/users?page=2", "2", 60000);
+        cache.put("GET http://example.com/items", "3", 60000);
+        cache.invalidate("GET http://example.com/users");
+        assertNull(cache.get("GET http://example.com/users?page=1"));
+        assertNull(cache.get("GET http://example.com/users?page=2"));
+        assertEquals("3", cache.get("GET http://example.com/items"));
+    }
+
+    @Test
+    public void timeToLivePerClass() throws Exception {
+        ObjectCache cache = new ObjectCache().setDefaultTimeToLive(10).setTimeToLive(BaseRequest.class, 1000);
+        assertEquals(1000, cache.getTimeToLive(UserRequest.class));
+        assertEquals(10, cache.getTimeToLive(GetRequest.class));
+    }
+
+    private static abstract class BaseRequest<T> extends GetRequest<T> {
+    }
+
+    private static abstract class UserRequest extends BaseRequest<String> {
+    }
+}
@@ -0,0 +1,46 @@
+package software.rsquared.restapi;
+
+import org.junit.Test;
+
+import okhttp3.Headers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Rafal Zajfert
+ */
+public class PageListTest {
+
+    @Test
+    public void readsNextLink() {
+        Headers headers = Headers.of("Link", "<https://api.host.com/items?page=1>; rel=\"prev\", <https://api.host.com/items?page=3>; rel=\"next\"");
+        PageList<String> page = new PageList<>();
+
+        page.readNextLink(headers);
+
+        assertEquals("https://api.host.com/items?page=3", page.getNextCursor());
+        assertEquals("https://api.host.com/items?page=1", PageList.getLink(headers, "prev"));
+    }
+
+    @Test
+    public void readsRelationFromList() {
+        Headers headers = new Headers.Builder()
+                .add("Link", "<https://api.host.com/items?page=5>; title=\"end\"; rel=\"last\"")
+                .add("Link", "<https://api.host.com/items?page=2>; rel=\"next last\"")
+                .build();
+
+        assertEquals("https://api.host.com/items?page=5", PageList.getLink(headers, "last"));
+        assertEquals("https://api.host.com/items?page=2", PageList.getLink(headers, "NEXT"));
+    }
+
+    @Test
+    public void cursorIsNullWithoutNextLink() {
+        PageList<String> page = new PageList<>();
+        page.setNextCursor("cursor");
+
+        page.readNextLink(Headers.of("Link", "<https://api.host.com/items?page=1>; rel=prev"));
+
+        assertNull(page.getNextCursor());
+    }
+}
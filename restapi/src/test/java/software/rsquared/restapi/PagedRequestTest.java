@@ -0,0 +1,133 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import software.rsquared.restapi.exceptions.PageException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Rafal Zajfert
+ */
+public class PagedRequestTest {
+
+    @Before
+    public void setUp() {
+        RestApi.setConfiguration(new RestApiConfiguration());
+    }
+
+    @Test
+    public void iteratesAllPages() {
+        ItemsRequest request = new ItemsRequest(4);
+        List<String> items = new ArrayList<>();
+        for (String item : request.setPageSize(2)) {
+            items.add(item);
+        }
+        assertEquals(Arrays.asList("0-0", "0-1", "1-0", "1-1", "2-0", "2-1", "3-0", "3-1"), items);
+        assertEquals(4, request.created.get());
+        assertEquals(Arrays.asList(null, "1", "2", "3"), request.cursors);
+    }
+
+    @Test
+    public void prefetchesConfiguredNumberOfPages() throws Exception {
+        ItemsRequest request = new ItemsRequest(6);
+        Iterator<String> iterator = request.setPrefetch(2).iterator();
+        assertEquals("0-0", iterator.next());
+        awaitCreated(request, 3);
+        Thread.sleep(100);
+        // current page and two pages loaded in advance
+        assertEquals(3, request.created.get());
+
+        assertEquals("0-1", iterator.next());
+        assertEquals("1-0", iterator.next());
+        awaitCreated(request, 4);
+        Thread.sleep(100);
+        assertEquals(4, request.created.get());
+    }
+
+    @Test
+    public void loadsPageOnDemandWithoutPrefetch() throws Exception {
+        ItemsRequest request = new ItemsRequest(3);
+        Iterator<String> iterator = request.setPrefetch(0).iterator();
+        assertEquals("0-0", iterator.next());
+        Thread.sleep(100);
+        assertEquals(1, request.created.get());
+    }
+
+    @Test
+    public void failsWhenRequestCannotBeCreated() {
+        PagedRequest<String> request = new PagedRequest<String>() {
+            @NonNull
+            @Override
+            protected Request<? extends Page<String>> createRequest(@Nullable String cursor, int pageSize) {
+                throw new IllegalStateException("no request");
+            }
+        };
+        try {
+            request.iterator().hasNext();
+            fail();
+        } catch (PageException e) {
+            assertTrue(e.getCause().getCause() instanceof IllegalStateException);
+        }
+    }
+
+    private static void awaitCreated(ItemsRequest request, int count) throws InterruptedException {
+        for (int i = 0; i < 100 && request.created.get() < count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, request.created.get());
+    }
+
+    private static class ItemsRequest extends PagedRequest<String> {
+        private final int pages;
+        private final AtomicInteger created = new AtomicInteger();
+        private final List<String> cursors = Collections.synchronizedList(new ArrayList<>());
+
+        ItemsRequest(int pages) {
+            this.pages = pages;
+        }
+
+        @NonNull
+        @Override
+        protected Request<? extends Page<String>> createRequest(@Nullable String cursor, int pageSize) {
+            created.incrementAndGet();
+            cursors.add(cursor);
+            int index = cursor == null ? 0 : Integer.parseInt(cursor);
+            PageList<String> page = new PageList<>();
+            page.add(index + "-0");
+            page.add(index + "-1");
+            page.setNextCursor(index + 1 < pages ? String.valueOf(index + 1) : null);
+            return new MockedPageRequest(page);
+        }
+    }
+
+    private static class MockedPageRequest extends GetRequest<PageList<String>> {
+        private final PageList<String> page;
+
+        MockedPageRequest(PageList<String> page) {
+            this.page = page;
+        }
+
+        @Override
+        protected void prepareRequest() {
+        }
+
+        @Override
+        protected PageList<String> mock() {
+            return page;
+        }
+    }
+}
@@ -12,12 +12,21 @@ import com.fasterxml.jackson.databind.module.SimpleModule;
 import org.json.JSONObject;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import okhttp3.MediaType;
+import okio.Buffer;
+import okio.ByteString;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * @author Rafal Zajfert
@@ -39,6 +48,44 @@ public class ParameterTest {
 
     }
 
+    @Test
+    public void fileParameter() throws Exception {
+        FileParameter parameter = new FileParameter("file", new File("/path/image.jpg"));
+        assertTrue(parameter.isFile());
+        assertEquals(new File("/path/image.jpg").getAbsolutePath(), parameter.getFilePath());
+        assertEquals("image.jpg", parameter.getFileName());
+        assertEquals(MediaType.parse("image/jpg"), parameter.getContentType());
+
+        parameter = new FileParameter("file", "data.bin", ByteString.encodeUtf8("data"), null);
+        assertTrue(parameter.isFile());
+        assertEquals("data.bin", parameter.getFilePath());
+        assertEquals(4, parameter.createRequestBody().contentLength());
+    }
+
+    @Test
+    public void streamParameterIsWrittenOnce() throws Exception {
+        FileParameter parameter = new FileParameter("file", "data.bin", new ByteArrayInputStream("data".getBytes("UTF-8")), null);
+        assertTrue(parameter.isOneShot());
+        assertFalse(new FileParameter("file", "data.bin", ByteString.encodeUtf8("data"), null).isOneShot());
+
+        Buffer buffer = new Buffer();
+        parameter.createRequestBody().writeTo(buffer);
+        assertEquals("data", buffer.readUtf8());
+        try {
+            parameter.createRequestBody().writeTo(buffer);
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void isNotFile() throws Exception {
+        assertFalse(new Parameter("file", "_file{}").isFile());
+        assertFalse(new Parameter("file", "file{path_to_file}").isFile());
+        assertFalse(new Parameter("file", new File("path_to_file")).isFile());
+    }
+
     private class Report {
         @JsonProperty("param")
         String param = "test3";
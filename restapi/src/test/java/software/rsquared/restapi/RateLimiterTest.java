@@ -0,0 +1,89 @@
+package software.rsquared.restapi;
+
+import org.junit.Test;
+
+import okhttp3.HttpUrl;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Rafal Zajfert
+ */
+public class RateLimiterTest {
+
+    private static final HttpUrl USERS = HttpUrl.parse("http://api.host.com/users/1");
+    private static final HttpUrl POSTS = HttpUrl.parse("http://api.host.com/posts");
+
+    @Test
+    public void delaysCallsAboveRate() throws Exception {
+        RateLimiter limiter = new RateLimiter().setHostRate("api.host.com", 10, 2);
+        assertEquals(0, limiter.reserve(USERS));
+        assertEquals(0, limiter.reserve(USERS));
+        long delay = limiter.reserve(USERS);
+        assertTrue(delay > 50 && delay <= 100);
+        delay = limiter.reserve(USERS);
+        assertTrue(delay > 150 && delay <= 200);
+        assertEquals(0, limiter.reserve(HttpUrl.parse("http://other.host.com/")));
+    }
+
+    @Test
+    public void failsWhenWaitIsTooLong() throws Exception {
+        RateLimiter limiter = new RateLimiter().setGlobalRate(1, 1).setMaxWait(500);
+        assertEquals(0, limiter.reserve(USERS));
+        assertEquals(-1, limiter.reserve(POSTS));
+    }
+
+    @Test
+    public void reservesOnlyImmediateCalls() throws Exception {
+        RateLimiter limiter = new RateLimiter().setHostRate("api.host.com", 10, 1);
+        assertTrue(limiter.tryReserve(USERS));
+        assertFalse(limiter.tryReserve(USERS));
+        long delay = limiter.reserve(USERS);
+        assertTrue(delay > 50 && delay <= 100);
+
+        RateLimiter paused = new RateLimiter();
+        paused.onResponse(POSTS, response(429, "Retry-After", "2"));
+        assertFalse(paused.tryReserve(USERS));
+    }
+
+    @Test
+    public void limitsEndpoint() throws Exception {
+        RateLimiter limiter = new RateLimiter().setEndpointRate("/users/*", 1, 1);
+        assertEquals(0, limiter.reserve(USERS));
+        assertTrue(limiter.reserve(HttpUrl.parse("http://api.host.com/users/2")) > 0);
+        assertEquals(0, limiter.reserve(POSTS));
+    }
+
+    @Test
+    public void pausesAfterTooManyRequests() throws Exception {
+        RateLimiter limiter = new RateLimiter();
+        limiter.onResponse(USERS, response(429, "Retry-After", "2"));
+        long pause = limiter.getPause(POSTS);
+        assertTrue(pause > 1900 && pause <= 2000);
+        assertTrue(limiter.reserve(POSTS) > 1900);
+    }
+
+    @Test
+    public void pausesWhenRateLimitIsUsed() throws Exception {
+        RateLimiter limiter = new RateLimiter().setEndpointRate("/users/*", 100, 100);
+        limiter.onResponse(USERS, response(200, "X-RateLimit-Remaining", "0", "X-RateLimit-Reset", String.valueOf(System.currentTimeMillis() / 1000 + 3)));
+        assertTrue(limiter.getPause(USERS) > 1000);
+        assertEquals(0, limiter.getPause(POSTS));
+    }
+
+    private static Response response(int code, String... headers) {
+        Response.Builder builder = new Response.Builder()
+                .request(new okhttp3.Request.Builder().url(USERS).build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("");
+        for (int i = 0; i < headers.length; i += 2) {
+            builder.header(headers[i], headers[i + 1]);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,56 @@
+package software.rsquared.restapi;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import software.rsquared.restapi.exceptions.RequestException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Rafal Zajfert
+ */
+public class RequestCompletableFutureTest {
+
+    @Test
+    public void cancelPropagatesToRequest() {
+        AtomicInteger cancelled = new AtomicInteger();
+        RequestCompletableFuture<String> future = new RequestCompletableFuture<>(cancelled::incrementAndGet);
+
+        assertTrue(future.cancel(true));
+        assertTrue(future.cancel(true));
+        assertTrue(future.isCancelled());
+        assertEquals(1, cancelled.get());
+    }
+
+    @Test
+    public void completesWithResultOfTask() throws Exception {
+        AtomicInteger cancelled = new AtomicInteger();
+        RequestFutureTask<String> task = new RequestFutureTask<>();
+        RequestCompletableFuture<String> future = new RequestCompletableFuture<>(cancelled::incrementAndGet);
+        task.whenDone(() -> future.completeFrom(task));
+
+        task.complete("result");
+
+        assertEquals("result", future.get());
+        assertEquals(0, cancelled.get());
+    }
+
+    @Test
+    public void failsWithRequestException() {
+        RequestFutureTask<String> task = new RequestFutureTask<>();
+        RequestCompletableFuture<String> future = new RequestCompletableFuture<>(() -> {
+        });
+        task.whenDone(() -> future.completeFrom(task));
+
+        task.fail(new RequestException(new Exception("failure")));
+
+        assertTrue(future.isCompletedExceptionally());
+        future.exceptionally(e -> {
+            assertTrue(e instanceof RequestException);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,138 @@
+package software.rsquared.restapi;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Rafal Zajfert
+ */
+public class RequestDispatcherTest {
+
+    @Test
+    public void limitsRequestsPerHost() throws Exception {
+        RequestDispatcher dispatcher = new RequestDispatcher(8, Integer.MAX_VALUE, 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(10);
+        for (int i = 0; i < 10; i++) {
+            dispatcher.submit("api.host.com", () -> {
+                int current = running.incrementAndGet();
+                maxRunning.accumulateAndGet(current, Math::max);
+                Thread.sleep(10);
+                running.decrementAndGet();
+                finished.countDown();
+                return current;
+            }, null, null);
+        }
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    public void adaptiveLimitDecreasesAfterDrops() throws Exception {
+        RequestDispatcher dispatcher = new RequestDispatcher(8, Integer.MAX_VALUE, 8, true);
+        assertEquals(4, dispatcher.getLimit("api.host.com"));
+        for (int i = 0; i < 20; i++) {
+            dispatcher.onCallFinished("api.host.com", 0, true);
+        }
+        assertEquals(1, dispatcher.getLimit("api.host.com"));
+        assertEquals(4, dispatcher.getLimit("other.host.com"));
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) {
+            dispatcher.submit("api.host.com", () -> {
+                int current = running.incrementAndGet();
+                maxRunning.accumulateAndGet(current, Math::max);
+                Thread.sleep(10);
+                running.decrementAndGet();
+                finished.countDown();
+                return current;
+            }, null, null);
+        }
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    public void otherHostIsNotBlocked() throws Exception {
+        RequestDispatcher dispatcher = new RequestDispatcher(4, Integer.MAX_VALUE, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherHost = new CountDownLatch(1);
+        dispatcher.submit("slow.host.com", () -> release.await(5, TimeUnit.SECONDS), null, null);
+        dispatcher.submit("fast.host.com", () -> {
+            otherHost.countDown();
+            return true;
+        }, null, null);
+        assertTrue(otherHost.await(5, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    public void recognizesWorkerThread() throws Exception {
+        RequestDispatcher dispatcher = new RequestDispatcher(1, Integer.MAX_VALUE, 1);
+        AtomicBoolean worker = new AtomicBoolean();
+        CountDownLatch finished = new CountDownLatch(1);
+        dispatcher.execute(() -> {
+            worker.set(dispatcher.isWorkerThread());
+            finished.countDown();
+        });
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertTrue(worker.get());
+        assertFalse(dispatcher.isWorkerThread());
+    }
+
+    @Test
+    public void releasesHostWhenExternalTaskIsDone() throws Exception {
+        RequestDispatcher dispatcher = new RequestDispatcher(4, Integer.MAX_VALUE, 1);
+        RequestFutureTask<String> first = new RequestFutureTask<>();
+        RequestFutureTask<String> second = new RequestFutureTask<>();
+        CountDownLatch started = new CountDownLatch(1);
+        dispatcher.execute("api.host.com", first, () -> {
+        });
+        dispatcher.execute("api.host.com", second, started::countDown);
+        assertFalse(started.await(100, TimeUnit.MILLISECONDS));
+        first.complete("first");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals("first", first.get());
+    }
+
+    @Test
+    public void coalescesIdenticalRequests() throws Exception {
+        RequestDispatcher dispatcher = new RequestDispatcher(4, Integer.MAX_VALUE, 4);
+        RequestFutureTask<String> leader = new RequestFutureTask<>();
+        RequestFutureTask<String> follower = new RequestFutureTask<>();
+        RequestFutureTask<String> other = new RequestFutureTask<>();
+        assertTrue(dispatcher.coalesce("GET /items", leader, () -> {
+        }));
+        assertFalse(dispatcher.coalesce("GET /items", follower, () -> {
+        }));
+        assertTrue(dispatcher.coalesce("GET /users", other, () -> {
+        }));
+        leader.complete("items");
+        assertEquals("items", follower.get(5, TimeUnit.SECONDS));
+        assertFalse(other.isDone());
+        assertTrue(dispatcher.coalesce("GET /items", new RequestFutureTask<String>(), () -> {
+        }));
+    }
+
+    @Test
+    public void retriesFollowersOfCancelledRequest() throws Exception {
+        RequestDispatcher dispatcher = new RequestDispatcher(4, Integer.MAX_VALUE, 4);
+        RequestFutureTask<String> leader = new RequestFutureTask<>();
+        RequestFutureTask<String> follower = new RequestFutureTask<>();
+        dispatcher.coalesce("GET /items", leader, () -> {
+        });
+        dispatcher.coalesce("GET /items", follower, () -> follower.complete("retried"));
+        leader.cancel(true);
+        assertEquals("retried", follower.get(5, TimeUnit.SECONDS));
+    }
+}
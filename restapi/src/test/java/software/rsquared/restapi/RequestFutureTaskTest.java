@@ -0,0 +1,98 @@
+package software.rsquared.restapi;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import software.rsquared.restapi.exceptions.RequestException;
+import software.rsquared.restapi.listeners.ErrorCallback;
+import software.rsquared.restapi.listeners.RequestListener;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Rafal Zajfert
+ */
+public class RequestFutureTaskTest {
+
+    @Test
+    public void deliversPendingCallbacksInOnePost() {
+        List<Runnable> posted = new ArrayList<>();
+        List<String> events = new ArrayList<>();
+        RequestFutureTask<String> task = new RequestFutureTask<>((ErrorCallback) null, new RecordingListener(events));
+        task.setCallbackExecutor(posted::add);
+
+        task.start();
+        task.complete("result");
+
+        assertEquals(1, posted.size());
+        posted.get(0).run();
+        assertEquals(Arrays.asList("pre", "success:result", "post"), events);
+    }
+
+    @Test
+    public void directExecutorDeliversCallbacksImmediately() {
+        List<String> events = new ArrayList<>();
+        RequestFutureTask<String> task = new RequestFutureTask<>((ErrorCallback) null, new RecordingListener(events));
+        task.setCallbackExecutor(CallbackExecutors.direct());
+
+        task.start();
+        assertEquals(Arrays.asList("pre"), events);
+
+        task.fail(new RequestException(new Exception("failure")));
+        assertEquals(Arrays.asList("pre", "failed", "post"), events);
+    }
+
+    @Test
+    public void deliversCallbackPostedDuringDeliveryAfterIt() {
+        List<Runnable> posted = new ArrayList<>();
+        List<String> events = new ArrayList<>();
+        AtomicReference<RequestFutureTask<String>> task = new AtomicReference<>();
+        task.set(new RequestFutureTask<>((ErrorCallback) null, new RecordingListener(events) {
+            @Override
+            public void onPreExecute() {
+                super.onPreExecute();
+                task.get().complete("result");
+            }
+        }));
+        task.get().setCallbackExecutor(posted::add);
+
+        task.get().start();
+        posted.get(0).run();
+
+        // result is delivered by the running delivery instead of the parallel one
+        assertEquals(1, posted.size());
+        assertEquals(Arrays.asList("pre", "success:result", "post"), events);
+    }
+
+    private static class RecordingListener implements RequestListener<String> {
+        private final List<String> events;
+
+        RecordingListener(List<String> events) {
+            this.events = events;
+        }
+
+        @Override
+        public void onPreExecute() {
+            events.add("pre");
+        }
+
+        @Override
+        public void onSuccess(String result) {
+            events.add("success:" + result);
+        }
+
+        @Override
+        public void onFailed(RequestException e) {
+            events.add("failed");
+        }
+
+        @Override
+        public void onPostExecute() {
+            events.add("post");
+        }
+    }
+}
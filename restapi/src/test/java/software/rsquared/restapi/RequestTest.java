@@ -0,0 +1,343 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.ResponseBody;
+import software.rsquared.restapi.exceptions.RefreshTokenException;
+import software.rsquared.restapi.exceptions.RequestException;
+import software.rsquared.restapi.listeners.RefreshTokenCallback;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Rafal Zajfert
+ */
+public class RequestTest {
+
+    @Before
+    public void setUp() {
+        RestApi.setConfiguration(new RestApiConfiguration());
+    }
+
+    @Test
+    public void readsBodyWithOverriddenStringParser() throws Exception {
+        ResponseBody body = ResponseBody.create(MediaType.parse("text/plain"), "abc");
+        assertEquals("ABC", new UpperCaseRequest().readResult(body));
+        assertEquals("ABC", new UpperCaseSubRequest().readResult(ResponseBody.create(MediaType.parse("text/plain"), "abc")));
+    }
+
+    @Test
+    public void readsBodyStreamWithDefaultParser() throws Exception {
+        ResponseBody body = ResponseBody.create(MediaType.parse("application/json"), "\"abc\"");
+        assertEquals("abc", new StringRequest().readResult(body));
+    }
+
+    @Test
+    public void usesSharedHttpClientByDefault() {
+        assertSame(RestApi.getConfiguration().getHttpClient(), new StringRequest().getHttpClient());
+    }
+
+    @Test
+    public void usesClientOfOverriddenFactory() {
+        OkHttpClient shared = RestApi.getConfiguration().getHttpClient();
+        OkHttpClient client = new CustomClientRequest().getHttpClient();
+        assertNotSame(shared, client);
+        assertTrue(client.interceptors().contains(CustomClientRequest.INTERCEPTOR));
+        assertSame(shared.connectionPool(), client.connectionPool());
+    }
+
+    @Test
+    public void streamBodyIsNotRetried() {
+        UploadRequest request = new UploadRequest();
+        assertSame(RestApi.getConfiguration().getHttpClient(), request.getHttpClient());
+
+        request.putFile("file", "data.bin", new ByteArrayInputStream(new byte[]{1}), null);
+        assertTrue(request.isOneShotBody());
+        assertFalse(request.getHttpClient().retryOnConnectionFailure());
+    }
+
+    @Test
+    public void asyncRequestDoesNotBlockThreadWhileTokenIsRefreshed() throws Exception {
+        AuthorizationService service = new AuthorizationService();
+        RestApi.setConfiguration(new RestApiConfiguration()
+                .setMaxRequestThreads(1)
+                .setAsyncExecution(true)
+                .setRestAuthorizationService(service));
+        AuthorizedRequest authorized = new AuthorizedRequest();
+        RequestFuture<String> waiting = authorized.execute(null);
+        assertTrue(service.started.await(1, TimeUnit.SECONDS));
+
+        // the only dispatcher thread is not blocked by the waiting request
+        assertEquals("mocked", new MockedRequest().execute(null).get(1, TimeUnit.SECONDS));
+        assertEquals(1, authorized.sent.getCount());
+
+        service.valid = true;
+        service.callback.onSuccess();
+        assertTrue(authorized.sent.await(1, TimeUnit.SECONDS));
+        try {
+            waiting.get(1, TimeUnit.SECONDS);
+            fail();
+        } catch (IllegalStateException e) {
+            // call of the test request always fails
+        }
+        assertEquals(1, service.refreshes.get());
+    }
+
+    @Test
+    public void sendsTokenInBearerHeader() {
+        AuthorizedRequest request = authorizedRequest(TokenPlacement.BEARER_HEADER);
+        request.prepareRequest();
+
+        assertEquals("Bearer token", request.getHeaders().get("Authorization"));
+        assertNull(request.getUrl().queryParameter("access_token"));
+    }
+
+    @Test
+    public void sendsTokenInCustomHeader() {
+        RestApi.getConfiguration().setTokenHeaderName("X-Token");
+        AuthorizedRequest request = authorizedRequest(TokenPlacement.CUSTOM_HEADER);
+        request.prepareRequest();
+
+        Map<String, String> headers = request.getHeaders();
+        assertEquals("token", headers.get("X-Token"));
+        assertFalse(headers.containsKey("Authorization"));
+        assertNull(request.getUrl().queryParameter("access_token"));
+    }
+
+    @Test
+    public void replacesAccessTokenInUrl() {
+        authorizedRequest(TokenPlacement.QUERY_PARAMETER);
+        AuthorizedRequest request = new AuthorizedRequest("http://api.host.com/items?access_token=old&page=2");
+        request.prepareRequest();
+
+        HttpUrl url = request.getUrl();
+        assertEquals(Collections.singletonList("token"), url.queryParameterValues("access_token"));
+        assertEquals("2", url.queryParameter("page"));
+        assertFalse(request.getHeaders().containsKey("Authorization"));
+    }
+
+    @Test
+    public void cachesResultPerTokenWhenTokenIsInHeader() throws Exception {
+        AuthorizationService service = new AuthorizationService();
+        service.valid = true;
+        ObjectCache cache = new ObjectCache().setTimeToLive(AuthorizedRequest.class, TimeUnit.MINUTES.toMillis(1));
+        cache.put("GET http://api.host.com/items\ntoken", "cached", TimeUnit.MINUTES.toMillis(1));
+        RestApi.setConfiguration(new RestApiConfiguration()
+                .setTokenPlacement(TokenPlacement.BEARER_HEADER)
+                .setObjectCache(cache)
+                .setRestAuthorizationService(service));
+
+        assertEquals("cached", RestApi.executeSync(new AuthorizedRequest()));
+
+        service.token = "other";
+        try {
+            RestApi.executeSync(new AuthorizedRequest());
+            fail();
+        } catch (IllegalStateException e) {
+            // result cached for the other user is not used, so request is sent
+        }
+    }
+
+    private static AuthorizedRequest authorizedRequest(@TokenPlacement int tokenPlacement) {
+        AuthorizationService service = new AuthorizationService();
+        service.valid = true;
+        RestApi.getConfiguration()
+                .setTokenPlacement(tokenPlacement)
+                .setRestAuthorizationService(service);
+        return new AuthorizedRequest();
+    }
+
+    @Test
+    public void executesOverriddenRequestTask() throws Exception {
+        assertEquals("task", RestApi.executeSync(new TaskRequest()));
+        assertEquals("mocked!", RestApi.executeSync(new WrappedTaskRequest()));
+        assertEquals("executed", new ExecuteRequest().execute(null).get(1, TimeUnit.SECONDS));
+    }
+
+    @SuppressWarnings("deprecation")
+    private static class TaskRequest extends MockedRequest {
+        @NonNull
+        @Override
+        protected Callable<String> createRequestTask() {
+            return () -> "task";
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static class WrappedTaskRequest extends MockedRequest {
+        @NonNull
+        @Override
+        protected Callable<String> createRequestTask() {
+            Callable<String> task = super.createRequestTask();
+            return () -> task.call() + "!";
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static class ExecuteRequest extends MockedRequest {
+        @Override
+        protected String executeRequest() {
+            return "executed";
+        }
+    }
+
+    @Test
+    public void failsWithRateLimitedCodeWhenHostIsPaused() {
+        RateLimiter limiter = new RateLimiter();
+        limiter.pause("api.host.com", TimeUnit.MINUTES.toMillis(2));
+        RestApi.setConfiguration(new RestApiConfiguration().setRateLimiter(limiter));
+        try {
+            RestApi.executeSync(new ItemRequest());
+            fail();
+        } catch (RequestException e) {
+            assertEquals(RequestException.RATE_LIMITED, e.getResponseCode());
+        }
+    }
+
+    private static class ItemRequest extends GetRequest<String> {
+        @Override
+        protected void prepareRequest() {
+            setUrl("http://api.host.com/items");
+        }
+    }
+
+    private static class AuthorizedRequest extends GetRequest<String> {
+        private final CountDownLatch sent = new CountDownLatch(1);
+        private final String url;
+
+        AuthorizedRequest() {
+            this("http://api.host.com/items");
+        }
+
+        AuthorizedRequest(String url) {
+            this.url = url;
+            setIsAuthorizedRequest(true);
+        }
+
+        @Override
+        protected void prepareRequest() {
+            setUrl(url);
+        }
+
+        @NonNull
+        @Override
+        protected Call createRequest(HttpUrl url) {
+            sent.countDown();
+            throw new IllegalStateException("Network is not available in the test");
+        }
+    }
+
+    private static class MockedRequest extends GetRequest<String> {
+        @Override
+        protected void prepareRequest() {
+        }
+
+        @Override
+        protected String mock() {
+            return "mocked";
+        }
+    }
+
+    private static class AuthorizationService implements RestAuthorizationService {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final AtomicInteger refreshes = new AtomicInteger();
+        private volatile boolean valid;
+        private volatile String token = "token";
+        private volatile RefreshTokenCallback callback;
+
+        @Override
+        public boolean isLogged() {
+            return true;
+        }
+
+        @Override
+        public boolean isTokenValid() {
+            return valid;
+        }
+
+        @Override
+        public void refreshToken() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void refreshToken(@NonNull RefreshTokenCallback callback) {
+            refreshes.incrementAndGet();
+            this.callback = callback;
+            started.countDown();
+        }
+
+        @Override
+        public Authorization getAuthorization() {
+            return () -> token;
+        }
+
+        @Override
+        public boolean onNotLogged(Request request) {
+            return true;
+        }
+
+        @Override
+        public boolean onRefreshTokenFailed(RefreshTokenException e) {
+            return false;
+        }
+    }
+
+    private static class UploadRequest extends PostRequest<String> {
+        @Override
+        protected void prepareRequest() {
+        }
+    }
+
+    private static class StringRequest extends GetRequest<String> {
+        @Override
+        protected void prepareRequest() {
+        }
+    }
+
+    private static class UpperCaseRequest extends GetRequest<String> {
+        @Override
+        protected void prepareRequest() {
+        }
+
+        @Override
+        protected String readResult(String content) {
+            return content.toUpperCase();
+        }
+    }
+
+    private static class UpperCaseSubRequest extends UpperCaseRequest {
+    }
+
+    private static class CustomClientRequest extends StringRequest {
+        static final Interceptor INTERCEPTOR = chain -> chain.proceed(chain.request());
+
+        @SuppressWarnings("deprecation")
+        @Override
+        protected OkHttpClient.Builder createHttpClient(RestApiConfiguration configuration) {
+            return super.createHttpClient(configuration).addInterceptor(INTERCEPTOR);
+        }
+    }
+}
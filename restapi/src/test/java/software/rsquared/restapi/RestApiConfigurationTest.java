@@ -0,0 +1,47 @@
+package software.rsquared.restapi;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import okhttp3.Cache;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Rafal Zajfert
+ */
+public class RestApiConfigurationTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void reusesCacheWithSameDirectory() throws Exception {
+        File directory = folder.newFolder();
+        RestApiConfiguration configuration = new RestApiConfiguration().setCache(directory, 1024);
+        Cache cache = configuration.getHttpClient().cache();
+
+        configuration.setCache(directory, 1024);
+
+        assertSame(cache, configuration.getCache());
+        assertSame(cache, configuration.getHttpClient().cache());
+    }
+
+    @Test
+    public void closesPreviousCacheInSameDirectory() throws Exception {
+        File directory = folder.newFolder();
+        RestApiConfiguration configuration = new RestApiConfiguration().setCache(directory, 1024);
+        Cache cache = configuration.getHttpClient().cache();
+        cache.initialize();
+
+        configuration.setCache(directory, 2048);
+
+        assertNotSame(cache, configuration.getCache());
+        assertTrue(cache.isClosed());
+    }
+}
@@ -0,0 +1,72 @@
+package software.rsquared.restapi;
+
+import org.junit.Test;
+
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Rafal Zajfert
+ */
+public class RetryPolicyTest {
+
+    @Test
+    public void retriesOnlyRetryableCodes() throws Exception {
+        RetryPolicy policy = new RetryPolicy().setBaseDelay(100);
+        assertEquals(-1, policy.getRetryDelay(0, true, response(500, null)));
+        assertEquals(-1, policy.getRetryDelay(0, true, response(404, null)));
+        long delay = policy.getRetryDelay(0, true, response(503, null));
+        assertTrue(delay >= 0 && delay <= 100);
+        delay = policy.getRetryDelay(0, true, null);
+        assertTrue(delay >= 0 && delay <= 100);
+    }
+
+    @Test
+    public void retriesIdempotentRequestsOnly() throws Exception {
+        RetryPolicy policy = new RetryPolicy();
+        assertEquals(-1, policy.getRetryDelay(0, false, response(503, null)));
+        policy.setRetryNonIdempotent(true);
+        assertTrue(policy.getRetryDelay(0, false, response(503, null)) >= 0);
+    }
+
+    @Test
+    public void limitsNumberOfRetries() throws Exception {
+        RetryPolicy policy = new RetryPolicy().setMaxRetries(2).setBaseDelay(1000).setMaxDelay(1500);
+        assertTrue(policy.getRetryDelay(1, true, response(503, null)) <= 1500);
+        assertEquals(-1, policy.getRetryDelay(2, true, response(503, null)));
+    }
+
+    @Test
+    public void honorsRetryAfter() throws Exception {
+        RetryPolicy policy = new RetryPolicy().setBaseDelay(0).setMaxDelay(5000);
+        assertEquals(2000, policy.getRetryDelay(0, true, response(429, "2")));
+        assertEquals(-1, policy.getRetryDelay(0, true, response(429, "10")));
+    }
+
+    @Test
+    public void limitsRetriesByBudget() throws Exception {
+        RetryPolicy policy = new RetryPolicy().setRetryBudget(2, 0.5f);
+        assertTrue(policy.getRetryDelay(0, true, response(503, null)) >= 0);
+        assertTrue(policy.getRetryDelay(0, true, response(503, null)) >= 0);
+        assertEquals(-1, policy.getRetryDelay(0, true, response(503, null)));
+        policy.getRetryDelay(0, true, response(200, null));
+        assertEquals(-1, policy.getRetryDelay(0, true, response(503, null)));
+        policy.getRetryDelay(0, true, response(200, null));
+        assertTrue(policy.getRetryDelay(0, true, response(503, null)) >= 0);
+    }
+
+    private static Response response(int code, String retryAfter) {
+        Response.Builder builder = new Response.Builder()
+                .request(new okhttp3.Request.Builder().url("http://localhost/").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("");
+        if (retryAfter != null) {
+            builder.header("Retry-After", retryAfter);
+        }
+        return builder.build();
+    }
+}
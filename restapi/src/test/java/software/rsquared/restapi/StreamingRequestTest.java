@@ -0,0 +1,112 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.NonNull;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import software.rsquared.restapi.serialization.Deserializer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Rafal Zajfert
+ */
+public class StreamingRequestTest {
+
+    @Before
+    public void setUp() {
+        RestApi.setConfiguration(new RestApiConfiguration());
+    }
+
+    @Test
+    public void readsItemsOfArrayInBatches() throws Exception {
+        ResponseBody body = ResponseBody.create(MediaType.parse("application/json"), "[{\"id\":1},{\"id\":2},{\"id\":3},{\"id\":4},{\"id\":5}]");
+        ItemsRequest request = new ItemsRequest(2);
+
+        assertEquals(Long.valueOf(5), request.readResult(body));
+
+        assertEquals(3, request.batches.size());
+        assertEquals(2, request.batches.get(0).size());
+        assertEquals(2, request.batches.get(1).size());
+        assertEquals(1, request.batches.get(2).size());
+        assertEquals(1, request.batches.get(0).get(0).id);
+        assertEquals(5, request.batches.get(2).get(0).id);
+    }
+
+    @Test
+    public void readsItemsOfNewlineDelimitedJson() throws Exception {
+        ResponseBody body = ResponseBody.create(MediaType.parse("application/x-ndjson"), "{\"id\":1}\n{\"id\":2}\n{\"id\":3}\n");
+        ItemsRequest request = new ItemsRequest(3);
+
+        assertEquals(Long.valueOf(3), request.readResult(body));
+
+        assertEquals(1, request.batches.size());
+        assertEquals(3, request.batches.get(0).get(2).id);
+    }
+
+    @Test
+    public void readsEmptyArray() throws Exception {
+        ResponseBody body = ResponseBody.create(MediaType.parse("application/json"), "[]");
+        ItemsRequest request = new ItemsRequest(2);
+
+        assertEquals(Long.valueOf(0), request.readResult(body));
+
+        assertTrue(request.batches.isEmpty());
+    }
+
+    @Test
+    public void refusesDeserializerWithoutItemsSupport() throws Exception {
+        RestApi.setConfiguration(new RestApiConfiguration().setDeserializer(new Deserializer() {
+            @Override
+            public <T> T read(Class<?> requestClass, String content) {
+                return null;
+            }
+        }));
+        ItemsRequest request = new ItemsRequest(2);
+        try {
+            request.readResult(ResponseBody.create(MediaType.parse("application/json"), "[]"));
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void doesNotLogResponseBody() {
+        assertFalse(new ItemsRequest(2).isResponseBodyLogged());
+    }
+
+    private static class ItemsRequest extends StreamingRequest<Item> {
+        private final List<List<Item>> batches = new ArrayList<>();
+
+        ItemsRequest(int batchSize) {
+            setBatchSize(batchSize);
+        }
+
+        @Override
+        protected void prepareRequest() {
+        }
+
+        @Override
+        protected void onItems(@NonNull List<Item> items) throws IOException {
+            batches.add(items);
+        }
+    }
+
+    private static class Item {
+        @JsonProperty("id")
+        int id;
+    }
+}
@@ -0,0 +1,245 @@
+package software.rsquared.restapi;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import software.rsquared.restapi.exceptions.RefreshTokenException;
+import software.rsquared.restapi.listeners.RefreshTokenCallback;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Rafal Zajfert
+ */
+public class TokenRefresherTest {
+
+    @Test
+    public void refreshesTokenOnce() throws Exception {
+        TestService service = new TestService(false);
+        List<Boolean> results = ensureTokenValid(new TokenRefresher(), service, 10);
+        assertEquals(1, service.refreshes.get());
+        for (Boolean result : results) {
+            assertTrue(result);
+        }
+    }
+
+    @Test
+    public void reportsFailOnce() throws Exception {
+        TestService service = new TestService(true);
+        List<Boolean> results = ensureTokenValid(new TokenRefresher(), service, 10);
+        assertEquals(1, service.refreshes.get());
+        assertEquals(1, service.fails.get());
+        for (Boolean result : results) {
+            assertFalse(result);
+        }
+    }
+
+    @Test
+    public void continuesAfterFailWithoutNextRefresh() throws Exception {
+        TestService service = new TestService(true);
+        service.continueAfterFail = true;
+        List<Boolean> results = ensureTokenValid(new TokenRefresher(), service, 10);
+        assertEquals(1, service.refreshes.get());
+        assertEquals(1, service.fails.get());
+        for (Boolean result : results) {
+            assertTrue(result);
+        }
+    }
+
+    @Test
+    public void continuesWhenRefreshedTokenIsStillInvalid() throws Exception {
+        TestService service = new TestService(false);
+        service.validAfterRefresh = false;
+        assertTrue(new TokenRefresher().ensureTokenValid(service));
+        assertEquals(1, service.refreshes.get());
+        assertEquals(0, service.fails.get());
+    }
+
+    @Test
+    public void doesNotRefreshValidToken() throws Exception {
+        TestService service = new TestService(false);
+        service.valid = true;
+        assertTrue(new TokenRefresher().ensureTokenValid(service));
+        assertEquals(0, service.refreshes.get());
+    }
+
+    @Test
+    public void refreshesTokenBeforeExpiration() throws Exception {
+        TestService service = new TestService(false);
+        service.valid = true;
+        service.expiration = System.currentTimeMillis() + 1000;
+        TokenRefresher refresher = new TokenRefresher();
+        RequestDispatcher dispatcher = new RequestDispatcher(2, Integer.MAX_VALUE, 2);
+        refresher.scheduleRefresh(service, dispatcher, 0.5f, 0);
+        refresher.scheduleRefresh(service, dispatcher, 0.5f, 0);
+        Thread.sleep(200);
+        assertEquals(0, service.refreshes.get());
+        Thread.sleep(600);
+        assertEquals(1, service.refreshes.get());
+        assertEquals("token1", service.getAuthorization().getAccessToken());
+        assertTrue(refresher.ensureTokenValid(service));
+        assertEquals(1, service.refreshes.get());
+    }
+
+    @Test
+    public void schedulesRefreshAgainWhenDispatcherRejectedIt() throws Exception {
+        TestService service = new TestService(false);
+        service.valid = true;
+        service.expiration = System.currentTimeMillis() + 200;
+        TokenRefresher refresher = new TokenRefresher();
+        RequestDispatcher dispatcher = new RequestDispatcher(1, 1, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        // worker thread and the queue are full
+        dispatcher.execute(() -> await(release));
+        dispatcher.execute(() -> await(release));
+        refresher.scheduleRefresh(service, dispatcher, 0.5f, 0);
+        Thread.sleep(300);
+        release.countDown();
+        assertEquals(0, service.refreshes.get());
+
+        service.expiration = System.currentTimeMillis() + 200;
+        refresher.scheduleRefresh(service, dispatcher, 0.5f, 0);
+        Thread.sleep(400);
+        assertEquals(1, service.refreshes.get());
+    }
+
+    @Test
+    public void backgroundRefreshDoesNotBlockWorker() throws Exception {
+        TestService service = new TestService(false);
+        service.async = true;
+        service.valid = true;
+        service.expiration = System.currentTimeMillis() + 100;
+        TokenRefresher refresher = new TokenRefresher();
+        RequestDispatcher dispatcher = new RequestDispatcher(1, Integer.MAX_VALUE, 2);
+        refresher.scheduleRefresh(service, dispatcher, 0.5f, 0);
+        Thread.sleep(200);
+        assertEquals(1, service.refreshes.get());
+
+        CountDownLatch executed = new CountDownLatch(1);
+        dispatcher.execute(executed::countDown);
+        assertTrue(executed.await(1, TimeUnit.SECONDS));
+
+        service.expiration = System.currentTimeMillis() + 100;
+        service.callback.onSuccess();
+        Thread.sleep(200);
+        // refresh of the new token was scheduled
+        assertEquals(2, service.refreshes.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    private List<Boolean> ensureTokenValid(TokenRefresher refresher, TestService service, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit((Callable<Boolean>) () -> refresher.ensureTokenValid(service)));
+        }
+        List<Boolean> results = new ArrayList<>();
+        for (Future<Boolean> future : futures) {
+            results.add(future.get());
+        }
+        executor.shutdown();
+        return results;
+    }
+
+    private static class TestService implements RestAuthorizationService {
+        private final AtomicInteger refreshes = new AtomicInteger();
+        private final AtomicInteger fails = new AtomicInteger();
+        private final boolean fail;
+        private volatile boolean async;
+        private volatile RefreshTokenCallback callback;
+        private volatile boolean continueAfterFail;
+        private volatile boolean validAfterRefresh = true;
+        private volatile boolean valid;
+        private volatile long expiration;
+        private volatile String token = "token";
+
+        TestService(boolean fail) {
+            this.fail = fail;
+        }
+
+        @Override
+        public boolean isLogged() {
+            return true;
+        }
+
+        @Override
+        public boolean isTokenValid() {
+            return valid;
+        }
+
+        @Override
+        public void refreshToken() {
+            refreshes.incrementAndGet();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+            }
+            if (fail) {
+                throw new IllegalStateException("Refresh failed");
+            }
+            valid = validAfterRefresh;
+            token = "token" + refreshes.get();
+            if (expiration > 0) {
+                expiration = System.currentTimeMillis() + 60000;
+            }
+        }
+
+        @Override
+        public void refreshToken(@NonNull RefreshTokenCallback callback) {
+            if (!async) {
+                RestAuthorizationService.super.refreshToken(callback);
+                return;
+            }
+            refreshes.incrementAndGet();
+            token = "token" + refreshes.get();
+            this.callback = callback;
+        }
+
+        @Override
+        public Authorization getAuthorization() {
+            String accessToken = token;
+            long expirationTime = expiration;
+            return new Authorization() {
+                @Override
+                public String getAccessToken() {
+                    return accessToken;
+                }
+
+                @Override
+                public long getExpirationTime() {
+                    return expirationTime;
+                }
+            };
+        }
+
+        @Override
+        public boolean onNotLogged(Request request) {
+            return true;
+        }
+
+        @Override
+        public boolean onRefreshTokenFailed(RefreshTokenException e) {
+            fails.incrementAndGet();
+            return continueAfterFail;
+        }
+    }
+}